@@ -0,0 +1,41 @@
+package com.grabduck.taskmanager.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "cache-invalidation")
+@Data
+public class CacheInvalidationProperties {
+    /**
+     * Whether writes of other nodes are followed through a change stream; requires MongoDB to run as a replica set
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long the change stream waits for new changes before checking whether it should stop
+     */
+    private Duration maxAwaitTime = Duration.ofSeconds(1);
+
+    /**
+     * Pause before the change stream is opened again after it failed
+     */
+    private Duration retryDelay = Duration.ofSeconds(5);
+
+    /**
+     * Whether this is the only node writing to the database, so caches may be used without a change stream
+     */
+    private boolean singleNode = false;
+
+    /**
+     * Caches only see the writes of their own node, so without a change stream they would serve
+     * other nodes' stale data; they are turned off unless the node is known to be alone.
+     */
+    public boolean cachesAllowed() {
+        return enabled || singleNode;
+    }
+}
@@ -0,0 +1,67 @@
+package com.grabduck.taskmanager.config;
+
+import com.grabduck.taskmanager.util.ConcurrencyLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optionally handles requests on virtual threads. Every request blocks on the synchronous MongoDB
+ * driver, so with a thread per request the number of requests in flight is no longer bounded by
+ * Tomcat's thread pool; instead, MongoDB calls wait for one of as many permits as the driver has
+ * connections, so that thousands of requests queue in a fair semaphore rather than in the
+ * driver's connection pool. A call that gets no permit within the pool's maximum wait time is
+ * answered with 503 and a Retry-After header.
+ * <p>
+ * Streams, such as exports, only hold a permit while their cursor is opened. The batches they
+ * fetch while being read are deliberately not limited: an export can run for minutes, and holding
+ * a permit for all of it, or failing it halfway when a batch gets no permit in time, would be
+ * worse than letting those fetches wait in the driver's connection pool, which still bounds them
+ * by the pool size and its maximum wait time.
+ * <p>
+ * The build still targets Java 17 unless it runs on Java 21, so the virtual thread executor is
+ * looked up at runtime.
+ */
+@Slf4j
+@Configuration
+public class ConcurrencyConfig {
+
+    @Value("${spring.data.mongodb.connection-pool-size}")
+    private int connectionPoolSize;
+
+    @Value("${spring.data.mongodb.connection-pool-max-wait-time}")
+    private long connectionPoolMaxWaitTime;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadCustomizer(ConcurrencyProperties properties) {
+        return protocolHandler -> {
+            if (properties.isVirtualThreads()) {
+                protocolHandler.setExecutor(newVirtualThreadPerTaskExecutor());
+                log.info("Handling requests on virtual threads, with at most {} concurrent MongoDB calls",
+                        connectionPoolSize);
+            }
+        };
+    }
+
+    @Bean
+    public ConcurrencyLimiter mongoCallLimiter() {
+        return new ConcurrencyLimiter("MongoDB", connectionPoolSize, Duration.ofMillis(connectionPoolMaxWaitTime));
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later, running on " + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create a virtual thread executor", e);
+        }
+    }
+}
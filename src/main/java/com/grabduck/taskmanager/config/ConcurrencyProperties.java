@@ -0,0 +1,17 @@
+package com.grabduck.taskmanager.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "concurrency")
+@Data
+public class ConcurrencyProperties {
+    /**
+     * Whether requests are handled on virtual threads instead of Tomcat's thread pool; requires Java 21.
+     * MongoDB calls are then limited to the size of the connection pool.
+     */
+    private boolean virtualThreads = false;
+}
@@ -23,4 +23,9 @@ public class JwtProperties {
      * Token issuer
      */
     private String issuer = "task-manager";
+
+    /**
+     * Maximum number of verified tokens whose claims are cached until they expire; 0 disables the cache
+     */
+    private int verifiedTokenCacheSize = 10_000;
 }
@@ -0,0 +1,31 @@
+package com.grabduck.taskmanager.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "migration")
+@Data
+public class MigrationProperties {
+    /**
+     * Number of documents read and written per batch
+     */
+    private int batchSize = 500;
+
+    /**
+     * Number of _id ranges of a collection that are migrated in parallel
+     */
+    private int workers = 4;
+
+    /**
+     * Pause after every batch of a worker in milliseconds, to leave room for regular traffic
+     */
+    private long throttleMs = 20;
+
+    /**
+     * How long a node's claim on a running migration lasts unless renewed; it is renewed every third of that
+     */
+    private long leaseMs = 60_000;
+}
@@ -12,6 +12,8 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
 import org.springframework.context.annotation.Bean;
 import org.bson.UuidRepresentation;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @EnableMongoRepositories(basePackages = "com.grabduck.taskmanager.repository.mongodb")
 public class MongoConfig extends AbstractMongoClientConfiguration {
@@ -31,6 +33,12 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.password}")
     private String password;
 
+    @Value("${spring.data.mongodb.connection-pool-size}")
+    private int connectionPoolSize;
+
+    @Value("${spring.data.mongodb.connection-pool-max-wait-time}")
+    private long connectionPoolMaxWaitTime;
+
     @Override
     protected String getDatabaseName() {
         return database;
@@ -45,6 +53,9 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
         MongoClientSettings settings = MongoClientSettings.builder()
                 .applyConnectionString(new ConnectionString(connectionString))
                 .uuidRepresentation(UuidRepresentation.STANDARD)
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(connectionPoolSize)
+                        .maxWaitTime(connectionPoolMaxWaitTime, TimeUnit.MILLISECONDS))
                 .build();
 
         return MongoClients.create(settings);
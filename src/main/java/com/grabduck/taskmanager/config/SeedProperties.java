@@ -0,0 +1,26 @@
+package com.grabduck.taskmanager.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "seed")
+@Data
+public class SeedProperties {
+    /**
+     * Location of the JSON array of tasks to seed an empty database with
+     */
+    private String location = "classpath:tasks.json";
+
+    /**
+     * Number of tasks sent per insertMany
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Maximum number of insertMany batches in flight at once
+     */
+    private int parallelism = 4;
+}
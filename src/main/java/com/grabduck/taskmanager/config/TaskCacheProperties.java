@@ -0,0 +1,33 @@
+package com.grabduck.taskmanager.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "task-cache")
+@Data
+public class TaskCacheProperties {
+    /**
+     * Maximum number of single tasks cached by id; 0 disables the cache
+     */
+    private int maxSize = 10_000;
+
+    /**
+     * How long a cached task is served before it is loaded again
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * Maximum number of cached list pages; 0 disables the cache
+     */
+    private int queryMaxSize = 10_000;
+
+    /**
+     * How long a cached list page is served; writes invalidate it before that
+     */
+    private Duration queryTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,17 @@
+package com.grabduck.taskmanager.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "task-indexes")
+@Data
+public class TaskIndexProperties {
+    /**
+     * Whether indexes on the tasks collection that the application does not manage are dropped
+     * at startup; when false they are only reported in the logs and the admin index usage
+     */
+    private boolean dropUnmanaged = false;
+}
@@ -0,0 +1,69 @@
+package com.grabduck.taskmanager.config;
+
+import com.grabduck.taskmanager.domain.Page;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.repository.CachingTaskRepository;
+import com.grabduck.taskmanager.repository.LimitedTaskRepository;
+import com.grabduck.taskmanager.repository.TaskRepository;
+import com.grabduck.taskmanager.repository.mongodb.MongoTaskRepository;
+import com.grabduck.taskmanager.util.ConcurrencyLimiter;
+import com.grabduck.taskmanager.util.TinyLfuCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.UUID;
+
+/**
+ * Puts a cache of single tasks and list results in front of the MongoDB task repository; everything that depends
+ * on {@link TaskRepository} gets the cached one. With virtual threads, calls that miss the cache
+ * are limited by the MongoDB call limiter. Both caches stay empty unless writes of other nodes
+ * are followed through the change stream or the node is configured as the only one.
+ */
+@Slf4j
+@Configuration
+public class TaskRepositoryConfig {
+
+    @Bean
+    public TinyLfuCache<UUID, Task> taskCache(
+            TaskCacheProperties properties,
+            CacheInvalidationProperties invalidationProperties
+    ) {
+        int maxSize = allowedSize("tasks", properties.getMaxSize(), invalidationProperties);
+        return new TinyLfuCache<>("tasks", maxSize, properties.getTtl());
+    }
+
+    @Bean
+    public TinyLfuCache<CachingTaskRepository.QueryKey, Page<Task>> taskQueryCache(
+            TaskCacheProperties properties,
+            CacheInvalidationProperties invalidationProperties
+    ) {
+        int maxSize = allowedSize("task-queries", properties.getQueryMaxSize(), invalidationProperties);
+        return new TinyLfuCache<>("task-queries", maxSize, properties.getQueryTtl());
+    }
+
+    @Bean
+    @Primary
+    public CachingTaskRepository cachingTaskRepository(
+            MongoTaskRepository mongoTaskRepository,
+            TinyLfuCache<UUID, Task> taskCache,
+            TinyLfuCache<CachingTaskRepository.QueryKey, Page<Task>> taskQueryCache,
+            ConcurrencyLimiter mongoCallLimiter,
+            ConcurrencyProperties concurrencyProperties
+    ) {
+        TaskRepository delegate = concurrencyProperties.isVirtualThreads()
+                ? new LimitedTaskRepository(mongoTaskRepository, mongoCallLimiter)
+                : mongoTaskRepository;
+        return new CachingTaskRepository(delegate, taskCache, taskQueryCache);
+    }
+
+    private static int allowedSize(String name, int maxSize, CacheInvalidationProperties invalidationProperties) {
+        if (maxSize > 0 && !invalidationProperties.cachesAllowed()) {
+            log.warn("Cache {} disabled: set cache-invalidation.enabled, or cache-invalidation.single-node "
+                    + "if no other node writes to the database", name);
+            return 0;
+        }
+        return maxSize;
+    }
+}
@@ -0,0 +1,28 @@
+package com.grabduck.taskmanager.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "user-cache")
+@Data
+public class UserCacheProperties {
+    /**
+     * Maximum number of cached lookups per key (id, username, email)
+     */
+    private int maxSize = 10_000;
+
+    /**
+     * How long a found user is cached
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * How long a lookup that found no user is cached
+     */
+    private Duration negativeTtl = Duration.ofSeconds(10);
+}
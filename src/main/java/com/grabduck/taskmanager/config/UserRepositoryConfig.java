@@ -0,0 +1,44 @@
+package com.grabduck.taskmanager.config;
+
+import com.grabduck.taskmanager.repository.CachingUserRepository;
+import com.grabduck.taskmanager.repository.LimitedUserRepository;
+import com.grabduck.taskmanager.repository.UserRepository;
+import com.grabduck.taskmanager.repository.mongodb.MongoUserRepository;
+import com.grabduck.taskmanager.util.ConcurrencyLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Puts a cache in front of the MongoDB user repository; everything that depends on
+ * {@link UserRepository} gets the cached one. With virtual threads, calls that miss the cache
+ * are limited by the MongoDB call limiter. The cache stays empty unless writes of other nodes
+ * are followed through the change stream or the node is configured as the only one.
+ */
+@Slf4j
+@Configuration
+public class UserRepositoryConfig {
+
+    @Bean
+    @Primary
+    public CachingUserRepository cachingUserRepository(
+            MongoUserRepository mongoUserRepository,
+            UserCacheProperties properties,
+            ConcurrencyLimiter mongoCallLimiter,
+            ConcurrencyProperties concurrencyProperties,
+            CacheInvalidationProperties invalidationProperties
+    ) {
+        UserRepository delegate = concurrencyProperties.isVirtualThreads()
+                ? new LimitedUserRepository(mongoUserRepository, mongoCallLimiter)
+                : mongoUserRepository;
+        if (!invalidationProperties.cachesAllowed() && properties.getMaxSize() > 0) {
+            log.warn("User cache disabled: set cache-invalidation.enabled, or cache-invalidation.single-node "
+                    + "if no other node writes to the database");
+            UserCacheProperties disabled = new UserCacheProperties();
+            disabled.setMaxSize(0);
+            return new CachingUserRepository(delegate, disabled);
+        }
+        return new CachingUserRepository(delegate, properties);
+    }
+}
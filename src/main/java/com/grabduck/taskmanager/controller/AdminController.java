@@ -0,0 +1,48 @@
+package com.grabduck.taskmanager.controller;
+
+import com.grabduck.taskmanager.dto.CacheStatsDto;
+import com.grabduck.taskmanager.dto.IndexUsageDto;
+import com.grabduck.taskmanager.service.AdminService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for administrative endpoints. Requires the ADMIN role.
+ */
+@RestController
+@RequestMapping("/api/v1/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final AdminService adminService;
+
+    /**
+     * Reports how often each index of the tasks collection was used, so that unused
+     * indexes can be spotted and dropped.
+     *
+     * @return ResponseEntity containing the usage of every index on the tasks collection
+     */
+    @GetMapping("/indexes")
+    public ResponseEntity<List<IndexUsageDto>> getTaskIndexUsage() {
+        return ResponseEntity.ok(adminService.getTaskIndexUsage().stream()
+                .map(IndexUsageDto::from)
+                .toList());
+    }
+
+    /**
+     * Reports the hit ratio, evictions and load latency of every cache, so that the caches can be sized.
+     *
+     * @return ResponseEntity containing the statistics of every cache
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+        return ResponseEntity.ok(adminService.getCacheStats().stream()
+                .map(CacheStatsDto::from)
+                .toList());
+    }
+}
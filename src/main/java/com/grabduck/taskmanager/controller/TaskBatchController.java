@@ -0,0 +1,40 @@
+package com.grabduck.taskmanager.controller;
+
+import com.grabduck.taskmanager.dto.TaskBatchRequest;
+import com.grabduck.taskmanager.dto.TaskBatchResponseDto;
+import com.grabduck.taskmanager.exception.InvalidTaskException;
+import com.grabduck.taskmanager.service.TaskService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for applying many task changes in one request, for importers and
+ * clients that sync offline changes.
+ *
+ * @see TaskController
+ */
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class TaskBatchController {
+
+    private final TaskService taskService;
+
+    /**
+     * Creates, updates, patches and deletes tasks of the current user in one request.
+     * The user is resolved once and the operations are written together. Every operation
+     * gets its own result; one that fails does not stop the others.
+     *
+     * @param request The operations, at most {@link TaskService#MAX_BATCH_SIZE}, each task at most once
+     * @return ResponseEntity containing the result of every operation, in request order
+     * @throws InvalidTaskException if the batch is empty, too large or names a task twice
+     */
+    @PostMapping("/tasks:batch")
+    public ResponseEntity<TaskBatchResponseDto> applyBatch(@RequestBody TaskBatchRequest request) {
+        return ResponseEntity.ok(TaskBatchResponseDto.from(taskService.applyBatch(request.operations())));
+    }
+}
@@ -1,19 +1,43 @@
 package com.grabduck.taskmanager.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grabduck.taskmanager.domain.CountMode;
+import com.grabduck.taskmanager.domain.TagMatch;
+import com.grabduck.taskmanager.domain.Page;
 import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskImportReport;
+import com.grabduck.taskmanager.domain.TaskPatch;
 import com.grabduck.taskmanager.domain.TaskPriority;
 import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.domain.TaskView;
 import com.grabduck.taskmanager.domain.SortOption;
+import com.grabduck.taskmanager.dto.AffectedTasksDto;
 import com.grabduck.taskmanager.dto.PagedResponseDto;
 import com.grabduck.taskmanager.dto.CreateTaskRequest;
+import com.grabduck.taskmanager.dto.TaskSummaryDto;
 import com.grabduck.taskmanager.exception.InvalidTaskException;
 import com.grabduck.taskmanager.service.TaskService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * REST controller for managing tasks in the Task Manager application.
@@ -28,7 +52,12 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TaskController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int EXPORT_FLUSH_INTERVAL = 1_000;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     private final TaskService taskService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Creates a new task.
@@ -51,22 +80,33 @@ public class TaskController {
      * @param search Optional search term to filter tasks by name or description
      * @param status Optional status filter
      * @param priority Optional priority filter
-     * @param tag Optional tag filter
+     * @param tag Optional tag filter; may be repeated or comma-separated to filter by several tags
+     * @param tagMatch How several tags are combined: "all" (default) or "any"
      * @param page Page number (0-based). Must be non-negative.
      * @param size Number of items per page. Must be between 1 and 100.
      * @param sort Optional sort criteria (format: "field,direction", e.g., "dueDate,desc")
-     * @return ResponseEntity containing a paginated list of tasks matching the criteria
+     * @param cursor Optional cursor from a previous response's nextCursor; switches to keyset pagination,
+     *               continues in the cursor's sort order and cannot be combined with a page number
+     * @param count How the total is determined: "exact" (default), "estimate" (capped, cheaper on large lists)
+     *              or "none" (no totalElements and totalPages, for clients that only scroll)
+     * @param view Which task fields to return: "full" (default) or "summary" (list row fields, without description)
+     * @return ResponseEntity containing a paginated list of tasks matching the criteria,
+     *         with a nextCursor whenever the page is full
      * @throws com.grabduck.taskmanager.exception.InvalidTaskException if pagination parameters are invalid
      */
     @GetMapping
-    public ResponseEntity<PagedResponseDto<Task>> findTasks(
+    public ResponseEntity<PagedResponseDto<?>> findTasks(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) TaskStatus status,
             @RequestParam(required = false) TaskPriority priority,
-            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) Set<String> tag,
+            @RequestParam(defaultValue = "all") String tagMatch,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "dueDate,asc") String sort
+            @RequestParam(defaultValue = "dueDate,asc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String count,
+            @RequestParam(defaultValue = "full") String view
     ) {
         if (size < 1 || size > 100) {
             throw new InvalidTaskException("Page size must be between 1 and 100");
@@ -82,9 +122,239 @@ public class TaskController {
             throw new InvalidTaskException("Invalid sort parameter: " + e.getMessage());
         }
 
-        return ResponseEntity.ok(PagedResponseDto.from(
-                taskService.findTasks(search, status, priority, tag, page, size, sortOption)
-        ));
+        CountMode countMode;
+        try {
+            countMode = CountMode.fromString(count);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTaskException("Invalid count parameter: " + e.getMessage());
+        }
+
+        TaskView taskView;
+        try {
+            taskView = TaskView.fromString(view);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTaskException("Invalid view parameter: " + e.getMessage());
+        }
+
+        TaskFilter filter = toFilter(search, status, priority, tag, tagMatch);
+        Page<Task> result;
+        if (cursor != null) {
+            if (page != 0) {
+                throw new InvalidTaskException("Page number cannot be combined with a cursor");
+            }
+            TaskCursor after;
+            try {
+                after = TaskCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidTaskException("Invalid cursor parameter: " + e.getMessage());
+            }
+            sortOption = after.sortOption();
+            result = taskService.findTasksAfter(filter, after, size, countMode, taskView);
+        } else {
+            result = taskService.findTasks(filter, page, size, sortOption, countMode, taskView);
+        }
+
+        String nextCursor = nextCursor(result, size, sortOption);
+        if (taskView == TaskView.SUMMARY) {
+            return ResponseEntity.ok(PagedResponseDto.from(result.map(TaskSummaryDto::from), nextCursor));
+        }
+        return ResponseEntity.ok(PagedResponseDto.from(result, nextCursor));
+    }
+
+    /**
+     * Applies a partial update to every task that matches the filter, in one pass on the server.
+     * Takes the same filter parameters as {@link #findTasks}.
+     *
+     * @param patch The fields to change, as for a single task but without a version
+     * @param all Must be true to update every task when no filter is given
+     * @return ResponseEntity containing the number of updated tasks
+     * @throws com.grabduck.taskmanager.exception.InvalidTaskException if the patch is invalid,
+     *         or no filter is given without {@code all=true}
+     */
+    @PatchMapping
+    public ResponseEntity<AffectedTasksDto> updateTasks(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) TaskStatus status,
+            @RequestParam(required = false) TaskPriority priority,
+            @RequestParam(required = false) Set<String> tag,
+            @RequestParam(defaultValue = "all") String tagMatch,
+            @RequestParam(defaultValue = "false") boolean all,
+            @RequestBody TaskPatch patch
+    ) {
+        TaskFilter filter = toRequiredFilter(search, status, priority, tag, tagMatch, all);
+        return ResponseEntity.ok(new AffectedTasksDto(taskService.updateTasks(filter, patch)));
+    }
+
+    /**
+     * Deletes every task that matches the filter, in one pass on the server.
+     * Takes the same filter parameters as {@link #findTasks}.
+     *
+     * @param all Must be true to delete every task when no filter is given
+     * @return ResponseEntity containing the number of deleted tasks
+     * @throws com.grabduck.taskmanager.exception.InvalidTaskException if no filter is given without {@code all=true}
+     */
+    @DeleteMapping
+    public ResponseEntity<AffectedTasksDto> deleteTasks(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) TaskStatus status,
+            @RequestParam(required = false) TaskPriority priority,
+            @RequestParam(required = false) Set<String> tag,
+            @RequestParam(defaultValue = "all") String tagMatch,
+            @RequestParam(defaultValue = "false") boolean all
+    ) {
+        TaskFilter filter = toRequiredFilter(search, status, priority, tag, tagMatch, all);
+        return ResponseEntity.ok(new AffectedTasksDto(taskService.deleteTasks(filter)));
+    }
+
+    /**
+     * Exports every task that matches the filter as newline-delimited JSON, one task per line.
+     * Takes the same filter parameters as {@link #findTasks}. The tasks are written to the
+     * response as they are read from the store, in no particular order, and the response is
+     * flushed every {@value #EXPORT_FLUSH_INTERVAL} tasks, so the export runs in constant memory
+     * however many tasks there are. The response is gzip-compressed if the client accepts it.
+     *
+     * @param acceptEncoding The Accept-Encoding header of the request
+     * @return ResponseEntity streaming the matching tasks
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportTasks(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) TaskStatus status,
+            @RequestParam(required = false) TaskPriority priority,
+            @RequestParam(required = false) Set<String> tag,
+            @RequestParam(defaultValue = "all") String tagMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        Stream<Task> tasks = taskService.streamTasks(toFilter(search, status, priority, tag, tagMatch));
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = outputStream -> {
+            try (tasks;
+                 OutputStream out = gzip
+                         ? new GZIPOutputStream(outputStream, STREAM_BUFFER_SIZE, true)
+                         : new BufferedOutputStream(outputStream, STREAM_BUFFER_SIZE);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                long written = 0;
+                for (Iterator<Task> iterator = tasks.iterator(); iterator.hasNext(); ) {
+                    generator.writeObject(iterator.next());
+                    generator.writeRaw('\n');
+                    if (++written % EXPORT_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Imports tasks from newline-delimited JSON or a JSON array of task creation requests, as
+     * for {@link #createTask}. The body is parsed and written in batches while it is uploaded,
+     * so it may hold any number of tasks; it may be gzip-compressed with {@code Content-Encoding: gzip}.
+     *
+     * @param contentEncoding The Content-Encoding header of the request
+     * @param body The request body
+     * @return ResponseEntity containing the number of imported tasks and the errors of the items that were not imported
+     * @throws com.grabduck.taskmanager.exception.InvalidTaskException if the body is not valid gzip
+     */
+    @PostMapping(value = "/import", consumes = {NDJSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<TaskImportReport> importTasks(
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body
+    ) {
+        InputStream input = body;
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            try {
+                input = new GZIPInputStream(body, STREAM_BUFFER_SIZE);
+            } catch (IOException e) {
+                throw new InvalidTaskException("Request body is not valid gzip");
+            }
+        }
+        return ResponseEntity.ok(taskService.importTasks(input));
+    }
+
+    private static TaskFilter toFilter(
+            String search,
+            TaskStatus status,
+            TaskPriority priority,
+            Set<String> tag,
+            String tagMatch
+    ) {
+        TagMatch tagMatchMode;
+        try {
+            tagMatchMode = TagMatch.fromString(tagMatch);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTaskException("Invalid tagMatch parameter: " + e.getMessage());
+        }
+        return new TaskFilter(search, status, priority, tag, tagMatchMode);
+    }
+
+    /**
+     * Guards writes by filter against accidentally hitting every task.
+     */
+    private static TaskFilter toRequiredFilter(
+            String search,
+            TaskStatus status,
+            TaskPriority priority,
+            Set<String> tag,
+            String tagMatch,
+            boolean all
+    ) {
+        TaskFilter filter = toFilter(search, status, priority, tag, tagMatch);
+        if (filter.isEmpty() && !all) {
+            throw new InvalidTaskException("At least one filter is required, or all=true to change every task");
+        }
+        return filter;
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: the q-value of {@code gzip}, or of {@code *}
+     * if gzip is not listed, must be above zero.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase("gzip")) {
+                gzip = quality;
+            } else if (name.equals("*")) {
+                any = quality;
+            }
+        }
+        Double quality = gzip != null ? gzip : any;
+        return quality != null && quality > 0;
+    }
+
+    private static String nextCursor(Page<Task> page, int size, SortOption sortOption) {
+        if (page.elements().size() < size) {
+            return null;
+        }
+        Task last = page.elements().get(page.elements().size() - 1);
+        return TaskCursor.after(last, sortOption).encode();
     }
 
     /**
@@ -105,8 +375,11 @@ public class TaskController {
      *
      * @param taskId The UUID of the task to update
      * @param task The updated task data. Must not be null and must contain required fields.
-     * @return ResponseEntity containing the updated task
+     *             If it carries the version of a previous read, the update only succeeds while
+     *             the task is still at that version.
+     * @return ResponseEntity containing the updated task with its new version
      * @throws com.grabduck.taskmanager.exception.TaskNotFoundException if the task is not found
+     * @throws com.grabduck.taskmanager.exception.TaskVersionConflictException if the task was modified since that version
      * @throws com.grabduck.taskmanager.exception.InvalidTaskException if the task data is invalid
      */
     @PutMapping("/{taskId}")
@@ -117,6 +390,27 @@ public class TaskController {
         return ResponseEntity.ok(taskService.updateTask(taskId, task));
     }
 
+    /**
+     * Partially updates an existing task. Only the fields present in the patch are changed;
+     * tags are added or removed individually.
+     *
+     * @param taskId The UUID of the task to update
+     * @param patch The fields to change: status, priority, dueDate, addTags and removeTags.
+     *              If it carries the version of a previous read, the update only succeeds while
+     *              the task is still at that version.
+     * @return ResponseEntity containing the updated task with its new version
+     * @throws com.grabduck.taskmanager.exception.TaskNotFoundException if the task is not found
+     * @throws com.grabduck.taskmanager.exception.TaskVersionConflictException if the task was modified since that version
+     * @throws com.grabduck.taskmanager.exception.InvalidTaskException if the patch is empty or adds and removes the same tag
+     */
+    @PatchMapping("/{taskId}")
+    public ResponseEntity<Task> patchTask(
+            @PathVariable UUID taskId,
+            @RequestBody TaskPatch patch
+    ) {
+        return ResponseEntity.ok(taskService.patchTask(taskId, patch));
+    }
+
     /**
      * Deletes a task by its ID.
      *
@@ -0,0 +1,50 @@
+package com.grabduck.taskmanager.domain;
+
+import java.util.Arrays;
+
+/**
+ * How the total number of matching tasks is determined for a page of results.
+ */
+public enum CountMode {
+    /**
+     * Count every matching task.
+     */
+    EXACT("exact"),
+    /**
+     * Count cheaply; the total may be capped for large result sets.
+     */
+    ESTIMATE("estimate"),
+    /**
+     * Do not count; the page carries no total.
+     */
+    NONE("none");
+
+    private final String mode;
+
+    CountMode(String mode) {
+        this.mode = mode;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * Creates a CountMode from its string representation.
+     *
+     * @param mode the count mode as string
+     * @return the corresponding CountMode
+     * @throws IllegalArgumentException if the mode is invalid
+     */
+    public static CountMode fromString(String mode) {
+        return Arrays.stream(values())
+                .filter(value -> value.mode.equalsIgnoreCase(mode))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown count mode: " + mode + ". Valid values are: " +
+                                Arrays.toString(Arrays.stream(values())
+                                        .map(CountMode::getMode)
+                                        .toArray())
+                ));
+    }
+}
@@ -1,18 +1,45 @@
 package com.grabduck.taskmanager.domain;
 
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Domain model for pagination.
  * This class represents a page of results in the domain layer,
  * independent of any presentation layer concerns.
+ * The totals are null when the page was requested without a count.
  *
  * @param <T> The type of elements in the page
  */
 public record Page<T>(
         List<T> elements,
-        long totalElements,
-        int totalPages,
+        Long totalElements,
+        Integer totalPages,
         int pageSize,
         int pageNumber
-) {}
+) {
+    /**
+     * Creates a page, deriving the number of pages from the total.
+     *
+     * @param totalElements the total number of matching elements, or null if not counted
+     */
+    public static <T> Page<T> of(List<T> elements, Long totalElements, int pageSize, int pageNumber) {
+        Integer totalPages = totalElements != null
+                ? (int) Math.ceil((double) totalElements / pageSize)
+                : null;
+        return new Page<>(elements, totalElements, totalPages, pageSize, pageNumber);
+    }
+
+    /**
+     * Returns a page with the same totals and position whose elements are mapped by the function.
+     */
+    public <R> Page<R> map(Function<? super T, ? extends R> mapper) {
+        return new Page<>(
+                elements.stream().<R>map(mapper).toList(),
+                totalElements,
+                totalPages,
+                pageSize,
+                pageNumber
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package com.grabduck.taskmanager.domain;
+
+import java.util.Arrays;
+
+/**
+ * How the tags of a {@link TaskFilter} are combined.
+ */
+public enum TagMatch {
+    /**
+     * A task must carry every requested tag.
+     */
+    ALL("all"),
+    /**
+     * A task must carry at least one of the requested tags.
+     */
+    ANY("any");
+
+    private final String mode;
+
+    TagMatch(String mode) {
+        this.mode = mode;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * Creates a TagMatch from its string representation.
+     *
+     * @param mode the match mode as string
+     * @return the corresponding TagMatch
+     * @throws IllegalArgumentException if the mode is invalid
+     */
+    public static TagMatch fromString(String mode) {
+        return Arrays.stream(values())
+                .filter(value -> value.mode.equalsIgnoreCase(mode))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown tag match mode: " + mode + ". Valid values are: " +
+                                Arrays.toString(Arrays.stream(values())
+                                        .map(TagMatch::getMode)
+                                        .toArray())
+                ));
+    }
+}
@@ -13,12 +13,30 @@ public record Task(
     @NonNull TaskStatus status,
     @NonNull TaskPriority priority,
     @NonNull Set<String> tags,
-    @NonNull UUID ownerId
+    @NonNull UUID ownerId,
+    Long version
 ) {
     public Task {
         tags = Set.copyOf(tags); // Make tags immutable
     }
 
+    // Task without a known version, e.g. not yet stored
+    public Task(
+            UUID id,
+            String name,
+            String description,
+            LocalDateTime dueDate,
+            TaskStatus status,
+            TaskPriority priority,
+            Set<String> tags,
+            UUID ownerId) {
+        this(id, name, description, dueDate, status, priority, tags, ownerId, null);
+    }
+
+    public Task withVersion(Long version) {
+        return new Task(id, name, description, dueDate, status, priority, tags, ownerId, version);
+    }
+
     // Factory method for creating a new task
     public static Task createNew(
             @NonNull String name,
@@ -0,0 +1,94 @@
+package com.grabduck.taskmanager.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a sorted task list for keyset pagination.
+ * Holds the sort option together with the sort value and id of the last task returned,
+ * so the next page can resume with a range predicate instead of skipping earlier results.
+ *
+ * @param sortOption The sort the cursor belongs to
+ * @param lastValue  The sort field value of the last task, in its string form; null for a missing due date
+ * @param lastId     The id of the last task, which breaks ties between equal sort values
+ */
+public record TaskCursor(
+        SortOption sortOption,
+        String lastValue,
+        UUID lastId
+) {
+    private static final String SEPARATOR = "|";
+    private static final String NULL_VALUE = "-";
+    private static final String VALUE_PREFIX = "+";
+
+    /**
+     * Creates the cursor pointing right after the given task.
+     *
+     * @param task       the last task of a page
+     * @param sortOption the sort the page was produced with
+     * @return a cursor for the next page
+     */
+    public static TaskCursor after(Task task, SortOption sortOption) {
+        String value = switch (sortOption.field()) {
+            case DUE_DATE -> task.dueDate() != null ? task.dueDate().toString() : null;
+            case NAME -> task.name();
+            case STATUS -> task.status().name();
+            case PRIORITY -> task.priority().name();
+        };
+        return new TaskCursor(sortOption, value, task.id());
+    }
+
+    /**
+     * Returns the last sort value converted to the type of the sort field.
+     *
+     * @return a LocalDateTime, String, TaskStatus or TaskPriority; null for a missing due date
+     */
+    public Object sortValue() {
+        if (lastValue == null) {
+            return null;
+        }
+        return switch (sortOption.field()) {
+            case DUE_DATE -> LocalDateTime.parse(lastValue);
+            case NAME -> lastValue;
+            case STATUS -> TaskStatus.valueOf(lastValue);
+            case PRIORITY -> TaskPriority.valueOf(lastValue);
+        };
+    }
+
+    /**
+     * Encodes the cursor into an opaque URL-safe token.
+     */
+    public String encode() {
+        String raw = sortOption.field().getFieldName() + SEPARATOR
+                + sortOption.direction().getDirection() + SEPARATOR
+                + lastId + SEPARATOR
+                + (lastValue == null ? NULL_VALUE : VALUE_PREFIX + lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token created by {@link #encode()}.
+     *
+     * @param token the opaque cursor token
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static TaskCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            SortOption sortOption = new SortOption(SortField.fromString(parts[0]), SortDirection.fromString(parts[1]));
+            String value = parts[3].equals(NULL_VALUE) ? null : parts[3].substring(VALUE_PREFIX.length());
+            TaskCursor cursor = new TaskCursor(sortOption, value, UUID.fromString(parts[2]));
+            cursor.sortValue();
+            return cursor;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
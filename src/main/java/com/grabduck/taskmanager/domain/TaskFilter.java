@@ -0,0 +1,39 @@
+package com.grabduck.taskmanager.domain;
+
+import java.util.Set;
+
+/**
+ * Filters for task queries. A null filter value or an empty tag set matches every task.
+ *
+ * @param search   Optional term matched case-insensitively against name and description
+ * @param status   Optional status the task must have
+ * @param priority Optional priority the task must have
+ * @param tags     Tags to match, combined according to {@code tagMatch}
+ * @param tagMatch Whether a task needs all or any of the tags
+ */
+public record TaskFilter(
+        String search,
+        TaskStatus status,
+        TaskPriority priority,
+        Set<String> tags,
+        TagMatch tagMatch
+) {
+    public TaskFilter {
+        tags = tags != null ? Set.copyOf(tags) : Set.of();
+        tagMatch = tagMatch != null ? tagMatch : TagMatch.ALL;
+    }
+
+    /**
+     * Creates a filter that matches every task.
+     */
+    public static TaskFilter none() {
+        return new TaskFilter(null, null, null, Set.of(), TagMatch.ALL);
+    }
+
+    /**
+     * Whether the filter matches every task.
+     */
+    public boolean isEmpty() {
+        return (search == null || search.isBlank()) && status == null && priority == null && tags.isEmpty();
+    }
+}
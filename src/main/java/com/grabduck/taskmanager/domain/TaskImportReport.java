@@ -0,0 +1,29 @@
+package com.grabduck.taskmanager.domain;
+
+import java.util.List;
+
+/**
+ * Outcome of a task import: how many tasks were imported and which items failed.
+ * Only the first item errors are listed; {@code failed} counts all of them.
+ *
+ * @param imported number of tasks written
+ * @param failed   number of items that were not imported
+ * @param complete whether the whole input was read; false if the import stopped at malformed
+ *                 input or a failed write
+ * @param errors   the first item errors, in input order
+ */
+public record TaskImportReport(
+    long imported,
+    long failed,
+    boolean complete,
+    List<ItemError> errors
+) {
+    /**
+     * Why one item of the input was not imported.
+     *
+     * @param item    1-based position of the item in the input
+     * @param line    line of the input at which the item starts
+     * @param message what was wrong with the item
+     */
+    public record ItemError(long item, int line, String message) {}
+}
@@ -0,0 +1,59 @@
+package com.grabduck.taskmanager.domain;
+
+import lombok.NonNull;
+
+import java.util.UUID;
+
+/**
+ * One write of a task batch: a new task to create, a full replacement, a sparse patch
+ * or a delete of an existing task.
+ *
+ * @param deleteVersion for a delete, the version the task must still have, or null if any
+ *                      version will do; updates and patches carry theirs in the task or patch
+ */
+public record TaskOperation(
+    @NonNull Type type,
+    @NonNull UUID taskId,
+    Task task,
+    TaskPatch patch,
+    Long deleteVersion
+) {
+    public enum Type {
+        CREATE,
+        UPDATE,
+        PATCH,
+        DELETE
+    }
+
+    public static TaskOperation create(Task task) {
+        return new TaskOperation(Type.CREATE, task.id(), task, null, null);
+    }
+
+    public static TaskOperation update(Task task) {
+        return new TaskOperation(Type.UPDATE, task.id(), task, null, null);
+    }
+
+    public static TaskOperation patch(UUID taskId, TaskPatch patch) {
+        return new TaskOperation(Type.PATCH, taskId, null, patch, null);
+    }
+
+    public static TaskOperation delete(UUID taskId) {
+        return delete(taskId, null);
+    }
+
+    public static TaskOperation delete(UUID taskId, Long version) {
+        return new TaskOperation(Type.DELETE, taskId, null, null, version);
+    }
+
+    /**
+     * The version the task must still have for the operation to apply, or null if any version will do.
+     */
+    public Long expectedVersion() {
+        return switch (type) {
+            case UPDATE -> task.version();
+            case PATCH -> patch.version();
+            case DELETE -> deleteVersion;
+            case CREATE -> null;
+        };
+    }
+}
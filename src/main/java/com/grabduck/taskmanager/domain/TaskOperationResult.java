@@ -0,0 +1,57 @@
+package com.grabduck.taskmanager.domain;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one {@link TaskOperation} of a batch, with the task as written for creates,
+ * updates and patches.
+ */
+public record TaskOperationResult(
+    Status status,
+    UUID taskId,
+    Task task,
+    String error
+) {
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        NOT_FOUND,
+        CONFLICT,
+        INVALID,
+        FAILED
+    }
+
+    public static TaskOperationResult created(Task task) {
+        return new TaskOperationResult(Status.CREATED, task.id(), task, null);
+    }
+
+    public static TaskOperationResult updated(Task task) {
+        return new TaskOperationResult(Status.UPDATED, task.id(), task, null);
+    }
+
+    public static TaskOperationResult deleted(UUID taskId) {
+        return new TaskOperationResult(Status.DELETED, taskId, null, null);
+    }
+
+    public static TaskOperationResult notFound(UUID taskId) {
+        return new TaskOperationResult(Status.NOT_FOUND, taskId, null, "Task not found with id: " + taskId);
+    }
+
+    public static TaskOperationResult conflict(UUID taskId, Long version) {
+        return new TaskOperationResult(Status.CONFLICT, taskId, null,
+                "Task with id: " + taskId + " was modified concurrently, expected version: " + version);
+    }
+
+    public static TaskOperationResult invalid(UUID taskId, String error) {
+        return new TaskOperationResult(Status.INVALID, taskId, null, error);
+    }
+
+    public static TaskOperationResult failed(UUID taskId, String error) {
+        return new TaskOperationResult(Status.FAILED, taskId, null, error);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.CREATED || status == Status.UPDATED || status == Status.DELETED;
+    }
+}
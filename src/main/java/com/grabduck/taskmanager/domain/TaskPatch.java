@@ -0,0 +1,48 @@
+package com.grabduck.taskmanager.domain;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Sparse update of a task. Only the fields that are set are changed; tags are added and
+ * removed individually instead of being replaced. If a version is given, the patch only
+ * applies while the task is still at that version.
+ */
+public record TaskPatch(
+    TaskStatus status,
+    TaskPriority priority,
+    LocalDateTime dueDate,
+    Set<String> addTags,
+    Set<String> removeTags,
+    Long version
+) {
+    public TaskPatch {
+        addTags = addTags != null ? Set.copyOf(addTags) : Set.of();
+        removeTags = removeTags != null ? Set.copyOf(removeTags) : Set.of();
+    }
+
+    public boolean isEmpty() {
+        return status == null && priority == null && dueDate == null && addTags.isEmpty() && removeTags.isEmpty();
+    }
+
+    /**
+     * Returns the task with this patch applied, keeping the task's version.
+     */
+    public Task applyTo(Task task) {
+        Set<String> tags = new HashSet<>(task.tags());
+        tags.addAll(addTags);
+        tags.removeAll(removeTags);
+        return new Task(
+            task.id(),
+            task.name(),
+            task.description(),
+            dueDate != null ? dueDate : task.dueDate(),
+            status != null ? status : task.status(),
+            priority != null ? priority : task.priority(),
+            tags,
+            task.ownerId(),
+            task.version()
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package com.grabduck.taskmanager.domain;
+
+import java.util.Arrays;
+
+/**
+ * Which fields of a task a query loads.
+ */
+public enum TaskView {
+    /**
+     * Every field of the task.
+     */
+    FULL("full"),
+    /**
+     * Only the fields shown in a list row; the description is left out.
+     */
+    SUMMARY("summary");
+
+    private final String view;
+
+    TaskView(String view) {
+        this.view = view;
+    }
+
+    public String getView() {
+        return view;
+    }
+
+    /**
+     * Creates a TaskView from its string representation.
+     *
+     * @param view the view as string
+     * @return the corresponding TaskView
+     * @throws IllegalArgumentException if the view is invalid
+     */
+    public static TaskView fromString(String view) {
+        return Arrays.stream(values())
+                .filter(value -> value.view.equalsIgnoreCase(view))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown view: " + view + ". Valid values are: " +
+                                Arrays.toString(Arrays.stream(values())
+                                        .map(TaskView::getView)
+                                        .toArray())
+                ));
+    }
+}
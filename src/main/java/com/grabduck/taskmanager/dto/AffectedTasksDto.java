@@ -0,0 +1,10 @@
+package com.grabduck.taskmanager.dto;
+
+/**
+ * Web layer DTO for the outcome of an update or delete by filter.
+ *
+ * @param affected Number of tasks that were updated or deleted
+ */
+public record AffectedTasksDto(
+        long affected
+) {}
@@ -0,0 +1,50 @@
+package com.grabduck.taskmanager.dto;
+
+import com.grabduck.taskmanager.util.CacheStats;
+
+/**
+ * Web layer DTO for the statistics of one cache since startup.
+ *
+ * @param hitRatio          Share of lookups answered from the cache
+ * @param rejections        Loaded values not admitted because the entry they would replace was accessed more often
+ * @param averageLoadMillis Average time to load a missing value, in milliseconds
+ * @param coalesced         Misses that shared a load already in flight for the same key
+ * @param coalescingRatio   Share of loaded values that were shared instead of loaded again
+ */
+public record CacheStatsDto(
+        String name,
+        int size,
+        int maxSize,
+        long hits,
+        long misses,
+        double hitRatio,
+        long evictions,
+        long rejections,
+        long loads,
+        double averageLoadMillis,
+        long coalesced,
+        double coalescingRatio
+) {
+    /**
+     * Creates a CacheStatsDto from the statistics of a cache.
+     *
+     * @param stats The cache statistics
+     * @return A new CacheStatsDto
+     */
+    public static CacheStatsDto from(CacheStats stats) {
+        return new CacheStatsDto(
+                stats.name(),
+                stats.size(),
+                stats.maxSize(),
+                stats.hits(),
+                stats.misses(),
+                stats.hitRatio(),
+                stats.evictions(),
+                stats.rejections(),
+                stats.loads(),
+                stats.averageLoadMillis(),
+                stats.coalesced(),
+                stats.coalescingRatio()
+        );
+    }
+}
@@ -0,0 +1,41 @@
+package com.grabduck.taskmanager.dto;
+
+import com.grabduck.taskmanager.repository.mongodb.TaskIndexManager;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Web layer DTO for the usage statistics of one database index.
+ *
+ * @param key      The indexed fields and their directions, in index order
+ * @param accesses Number of operations that used the index since {@code since}
+ * @param managed  Whether the application manages the index
+ * @param state    Build state of a managed index
+ */
+public record IndexUsageDto(
+        String name,
+        Map<String, Object> key,
+        long accesses,
+        Instant since,
+        boolean managed,
+        String state
+) {
+    /**
+     * Creates an IndexUsageDto from the index statistics of the tasks collection.
+     *
+     * @param usage The index statistics
+     * @return A new IndexUsageDto
+     */
+    public static IndexUsageDto from(TaskIndexManager.TaskIndexUsage usage) {
+        return new IndexUsageDto(
+                usage.name(),
+                new LinkedHashMap<>(usage.key()),
+                usage.accesses(),
+                usage.since() != null ? usage.since().toInstant() : null,
+                usage.managed(),
+                usage.state().name()
+        );
+    }
+}
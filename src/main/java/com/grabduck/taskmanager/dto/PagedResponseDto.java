@@ -1,5 +1,6 @@
 package com.grabduck.taskmanager.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.grabduck.taskmanager.domain.Page;
 
 import java.util.List;
@@ -7,15 +8,18 @@ import java.util.List;
 /**
  * Web layer DTO for paginated responses.
  * Maps from the domain layer Page model to a format suitable for REST responses.
+ * Totals are left out of the response when the page was requested without a count.
  *
+ * @param nextCursor Opaque cursor for the next page in keyset mode; null when the page is not full
  * @param <T> The type of elements in the page
  */
 public record PagedResponseDto<T>(
         List<T> content,
-        long totalElements,
-        int totalPages,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Long totalElements,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Integer totalPages,
         int size,
-        int page
+        int page,
+        String nextCursor
 ) {
     /**
      * Creates a PagedResponseDto from a domain layer Page model.
@@ -25,12 +29,25 @@ public record PagedResponseDto<T>(
      * @return A new PagedResponseDto
      */
     public static <T> PagedResponseDto<T> from(Page<T> page) {
+        return from(page, null);
+    }
+
+    /**
+     * Creates a PagedResponseDto from a domain layer Page model with a cursor for the next page.
+     *
+     * @param page The domain layer page
+     * @param nextCursor The encoded cursor for the next page, or null
+     * @param <T> The type of elements
+     * @return A new PagedResponseDto
+     */
+    public static <T> PagedResponseDto<T> from(Page<T> page, String nextCursor) {
         return new PagedResponseDto<>(
                 page.elements(),
                 page.totalElements(),
                 page.totalPages(),
                 page.pageSize(),
-                page.pageNumber()
+                page.pageNumber(),
+                nextCursor
         );
     }
 }
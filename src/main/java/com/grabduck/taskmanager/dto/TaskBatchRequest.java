@@ -0,0 +1,53 @@
+package com.grabduck.taskmanager.dto;
+
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskPatch;
+import com.grabduck.taskmanager.domain.TaskPriority;
+import com.grabduck.taskmanager.domain.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) for applying several task operations in one request.
+ *
+ * @param operations The operations to apply, each task at most once.
+ */
+public record TaskBatchRequest(
+    List<Operation> operations
+) {
+    /**
+     * One operation of the batch.
+     *
+     * @param type   CREATE, UPDATE, PATCH or DELETE.
+     * @param taskId The task to update, patch or delete; not used for creates.
+     * @param task   The task to create, or the full replacement for an update.
+     * @param patch   The fields to change for a patch.
+     * @param version For deletes, the version the task must still have; optional.
+     */
+    public record Operation(
+        TaskOperation.Type type,
+        UUID taskId,
+        TaskFields task,
+        TaskPatch patch,
+        Long version
+    ) {}
+
+    /**
+     * Fields of a created or replaced task.
+     *
+     * @param status  Defaults to NOT_STARTED for creates; required for updates.
+     * @param version For updates, the version the task must still have; not used for creates.
+     */
+    public record TaskFields(
+        String name,
+        String description,
+        LocalDateTime dueDate,
+        TaskStatus status,
+        TaskPriority priority,
+        Set<String> tags,
+        Long version
+    ) {}
+}
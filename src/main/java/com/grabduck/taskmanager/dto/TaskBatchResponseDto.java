@@ -0,0 +1,57 @@
+package com.grabduck.taskmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Web layer DTO for the outcome of a task batch.
+ *
+ * @param results   The result of every operation, in the order of the request
+ * @param succeeded Number of operations that were applied
+ * @param failed    Number of operations that were not applied
+ */
+public record TaskBatchResponseDto(
+        List<Result> results,
+        int succeeded,
+        int failed
+) {
+    /**
+     * Outcome of one operation.
+     *
+     * @param task  The task as written, for creates, updates and patches
+     * @param error Why the operation was not applied
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Result(
+            int index,
+            TaskOperationResult.Status status,
+            UUID taskId,
+            Task task,
+            String error
+    ) {}
+
+    /**
+     * Creates a TaskBatchResponseDto from the operation results.
+     *
+     * @param results The results in the order of the operations
+     * @return A new TaskBatchResponseDto
+     */
+    public static TaskBatchResponseDto from(List<TaskOperationResult> results) {
+        int succeeded = (int) results.stream().filter(TaskOperationResult::isSuccess).count();
+        return new TaskBatchResponseDto(
+                IntStream.range(0, results.size())
+                        .mapToObj(index -> {
+                            TaskOperationResult result = results.get(index);
+                            return new Result(index, result.status(), result.taskId(), result.task(), result.error());
+                        })
+                        .toList(),
+                succeeded,
+                results.size() - succeeded
+        );
+    }
+}
@@ -0,0 +1,38 @@
+package com.grabduck.taskmanager.dto;
+
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskPriority;
+import com.grabduck.taskmanager.domain.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Web layer DTO for a task in a list, without its description and owner.
+ */
+public record TaskSummaryDto(
+        UUID id,
+        String name,
+        LocalDateTime dueDate,
+        TaskStatus status,
+        TaskPriority priority,
+        Set<String> tags
+) {
+    /**
+     * Creates a TaskSummaryDto from a domain Task.
+     *
+     * @param task The domain task
+     * @return A new TaskSummaryDto
+     */
+    public static TaskSummaryDto from(Task task) {
+        return new TaskSummaryDto(
+                task.id(),
+                task.name(),
+                task.dueDate(),
+                task.status(),
+                task.priority(),
+                task.tags()
+        );
+    }
+}
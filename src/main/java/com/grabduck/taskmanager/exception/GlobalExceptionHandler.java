@@ -2,6 +2,7 @@ package com.grabduck.taskmanager.exception;
 
 import com.grabduck.taskmanager.dto.ErrorResponseDto;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -34,6 +35,22 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(TaskVersionConflictException.class)
+    public ResponseEntity<ErrorResponseDto> handleTaskVersionConflictException(
+            TaskVersionConflictException ex,
+            HttpServletRequest request
+    ) {
+        return new ResponseEntity<>(
+                createErrorResponse(
+                        ex.getMessage(),
+                        HttpStatus.CONFLICT,
+                        request.getRequestURI(),
+                        null
+                ),
+                HttpStatus.CONFLICT
+        );
+    }
+
     @ExceptionHandler(InvalidTaskException.class)
     public ResponseEntity<ErrorResponseDto> handleInvalidTaskException(
             InvalidTaskException ex,
@@ -120,6 +137,23 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponseDto> handleServiceBusyException(
+            ServiceBusyException ex,
+            HttpServletRequest request
+    ) {
+        // Retry-After takes whole seconds; round up so clients never retry too early
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(createErrorResponse(
+                        "Service is busy, please retry later",
+                        HttpStatus.SERVICE_UNAVAILABLE,
+                        request.getRequestURI(),
+                        null
+                ));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponseDto> handleGenericException(
             Exception ex,
@@ -0,0 +1,20 @@
+package com.grabduck.taskmanager.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request cannot get a share of a limited resource in time; the client should try
+ * again after {@link #getRetryAfter()}.
+ */
+public class ServiceBusyException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,9 @@
+package com.grabduck.taskmanager.exception;
+
+import java.util.UUID;
+
+public class TaskVersionConflictException extends RuntimeException {
+    public TaskVersionConflictException(UUID taskId, Long version) {
+        super("Task with id: " + taskId + " was modified concurrently, expected version: " + version);
+    }
+}
@@ -0,0 +1,273 @@
+package com.grabduck.taskmanager.repository;
+
+import com.grabduck.taskmanager.domain.CountMode;
+import com.grabduck.taskmanager.domain.Page;
+import com.grabduck.taskmanager.domain.SortOption;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+import com.grabduck.taskmanager.domain.TaskPatch;
+import com.grabduck.taskmanager.domain.TaskView;
+import com.grabduck.taskmanager.util.TinyLfuCache;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache of single tasks and of list query results in front of another task repository.
+ * <p>
+ * Tasks are cached by id regardless of owner, and the owner check of {@link #findById} is applied
+ * to the cached task, so a task is loaded once however its owner asks for it. Every write
+ * invalidates the tasks it touched: by id for single-task writes and batches, and every cached
+ * task of the owner for updates and deletes by filter. A load that raced with a write to the same
+ * task is not cached; writes bump a stamp per stripe of task ids, and owner-wide writes a global
+ * epoch, which loads compare before caching.
+ * <p>
+ * Pages are cached under their full query together with the generation of the owner's tasks.
+ * Every write bumps the generation of the owner it writes to, so the pages cached before it are
+ * never looked up again; invalidation costs one increment. The query cache treats pages of a
+ * stale generation as expired, so they are the first to make room for new pages instead of
+ * holding their room and access counts until their time to live runs out. Generations
+ * are kept per stripe of owners, so owners sharing a stripe also invalidate each other's pages.
+ * Queries across all owners use a generation that every write bumps, and writes to an unknown
+ * owner bump a generation that is added to every owner's. The generation is read before a page
+ * is loaded, so a page that raced with a write is cached under a stale generation. Identical
+ * queries that miss at the same time share one load; since the owner is part of the key, only
+ * queries of the same owner are ever coalesced.
+ * Streams are passed through.
+ * <p>
+ * Writes made elsewhere, such as by other nodes, are not seen by this repository; they are
+ * reported through {@link #evict} and {@link #evictAll}.
+ */
+public class CachingTaskRepository implements TaskRepository {
+    private static final int STRIPES = 1024;
+
+    /**
+     * A list query together with the generation of the tasks it reads.
+     *
+     * @param cursor the cursor of a keyset query, or null for an offset page
+     */
+    public record QueryKey(
+            UUID ownerId,
+            long generation,
+            TaskFilter filter,
+            int page,
+            int size,
+            SortOption sortOption,
+            TaskCursor cursor,
+            CountMode countMode,
+            TaskView view
+    ) {}
+
+    private final TaskRepository delegate;
+    private final TinyLfuCache<UUID, Task> cache;
+    private final TinyLfuCache<QueryKey, Page<Task>> queryCache;
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicLongArray ownerGenerations = new AtomicLongArray(STRIPES);
+    private final AtomicLong allOwnersGeneration = new AtomicLong();
+    private final AtomicLong unknownOwnerGeneration = new AtomicLong();
+
+    public CachingTaskRepository(
+            TaskRepository delegate,
+            TinyLfuCache<UUID, Task> cache,
+            TinyLfuCache<QueryKey, Page<Task>> queryCache
+    ) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.queryCache = queryCache;
+        queryCache.reclaimWhen(key -> key.generation() < generation(key.ownerId()));
+    }
+
+    @Override
+    public Task save(Task task) {
+        try {
+            return delegate.save(task);
+        } finally {
+            invalidate(task.id());
+            bumpGeneration(task.ownerId());
+        }
+    }
+
+    @Override
+    public Optional<Task> findById(UUID id, UUID ownerId) {
+        Task task = cache.get(id);
+        if (task == null) {
+            long stamp = stamp(id);
+            long start = System.nanoTime();
+            Optional<Task> loaded = delegate.findById(id, null);
+            cache.recordLoad(System.nanoTime() - start);
+            if (loaded.isEmpty()) {
+                return loaded;
+            }
+            task = loaded.get();
+            if (cache.put(id, task) && stamp(id) != stamp) {
+                cache.invalidate(id);
+            }
+        }
+        return ownerId == null || ownerId.equals(task.ownerId()) ? Optional.of(task) : Optional.empty();
+    }
+
+    @Override
+    public Optional<Task> update(Task task) {
+        try {
+            return delegate.update(task);
+        } finally {
+            invalidate(task.id());
+            bumpGeneration(task.ownerId());
+        }
+    }
+
+    @Override
+    public Optional<Task> patch(UUID id, UUID ownerId, TaskPatch patch) {
+        try {
+            return delegate.patch(id, ownerId, patch);
+        } finally {
+            invalidate(id);
+            bumpGeneration(ownerId);
+        }
+    }
+
+    @Override
+    public long deleteById(UUID id, UUID ownerId) {
+        try {
+            return delegate.deleteById(id, ownerId);
+        } finally {
+            invalidate(id);
+            bumpGeneration(ownerId);
+        }
+    }
+
+    @Override
+    public List<TaskOperationResult> applyBatch(UUID ownerId, List<TaskOperation> operations) {
+        try {
+            return delegate.applyBatch(ownerId, operations);
+        } finally {
+            operations.stream()
+                    .filter(operation -> operation.type() != TaskOperation.Type.CREATE)
+                    .forEach(operation -> invalidate(operation.taskId()));
+            bumpGeneration(ownerId);
+        }
+    }
+
+    @Override
+    public long updateTasks(UUID ownerId, TaskFilter filter, TaskPatch patch) {
+        try {
+            return delegate.updateTasks(ownerId, filter, patch);
+        } finally {
+            invalidateOwner(ownerId);
+        }
+    }
+
+    @Override
+    public long deleteTasks(UUID ownerId, TaskFilter filter) {
+        try {
+            return delegate.deleteTasks(ownerId, filter);
+        } finally {
+            invalidateOwner(ownerId);
+        }
+    }
+
+    @Override
+    public Page<Task> findTasks(
+            UUID ownerId,
+            TaskFilter filter,
+            int page,
+            int size,
+            SortOption sortOption,
+            CountMode countMode,
+            TaskView view
+    ) {
+        QueryKey key = new QueryKey(ownerId, generation(ownerId), filter, page, size, sortOption, null, countMode, view);
+        return queryCache.getOrLoad(key, () -> delegate.findTasks(ownerId, filter, page, size, sortOption, countMode, view));
+    }
+
+    @Override
+    public Page<Task> findTasksAfter(
+            UUID ownerId,
+            TaskFilter filter,
+            TaskCursor cursor,
+            int size,
+            CountMode countMode,
+            TaskView view
+    ) {
+        QueryKey key = new QueryKey(ownerId, generation(ownerId), filter, 0, size, null, cursor, countMode, view);
+        return queryCache.getOrLoad(key, () -> delegate.findTasksAfter(ownerId, filter, cursor, size, countMode, view));
+    }
+
+    @Override
+    public Stream<Task> streamTasks(UUID ownerId, TaskFilter filter) {
+        return delegate.streamTasks(ownerId, filter);
+    }
+
+    private void invalidate(UUID id) {
+        stamps.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    /**
+     * Drops what is cached of a task that was written elsewhere.
+     *
+     * @param ownerId the owner of the task, or null if unknown
+     */
+    public void evict(UUID id, UUID ownerId) {
+        invalidate(id);
+        bumpGeneration(ownerId);
+    }
+
+    /**
+     * Drops everything that is cached, for when writes made elsewhere may have been missed.
+     */
+    public void evictAll() {
+        epoch.incrementAndGet();
+        cache.clear();
+        bumpGeneration(null);
+        queryCache.clear();
+    }
+
+    private void invalidateOwner(UUID ownerId) {
+        epoch.incrementAndGet();
+        cache.invalidateIf(task -> ownerId.equals(task.ownerId()));
+        bumpGeneration(ownerId);
+    }
+
+    /**
+     * Makes every cached page of the owner, and of all owners, unreachable.
+     *
+     * @param ownerId the owner whose tasks changed, or null if unknown
+     */
+    private void bumpGeneration(UUID ownerId) {
+        if (ownerId == null) {
+            unknownOwnerGeneration.incrementAndGet();
+        } else {
+            ownerGenerations.incrementAndGet(stripe(ownerId));
+        }
+        allOwnersGeneration.incrementAndGet();
+    }
+
+    /**
+     * Both counters only grow, so their sum changes with every write to the owner.
+     */
+    private long generation(UUID ownerId) {
+        return ownerId != null
+                ? ownerGenerations.get(stripe(ownerId)) + unknownOwnerGeneration.get()
+                : allOwnersGeneration.get();
+    }
+
+    /**
+     * Combines the stamp of the id's stripe with the global epoch; changes with every write that may touch the task.
+     */
+    private long stamp(UUID id) {
+        return stamps.get(stripe(id)) * 31 + epoch.get();
+    }
+
+    private static int stripe(UUID id) {
+        return (id.hashCode() & 0x7fffffff) % STRIPES;
+    }
+}
@@ -0,0 +1,173 @@
+package com.grabduck.taskmanager.repository;
+
+import com.grabduck.taskmanager.config.UserCacheProperties;
+import com.grabduck.taskmanager.domain.User;
+import com.grabduck.taskmanager.util.TtlCache;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the users of another repository by id, username and email. Found users are cached for
+ * the configured time to live; lookups that found no user are cached too, for a shorter time, so
+ * that repeated lookups of unknown usernames do not reach the database either. Saving or
+ * deleting a user invalidates every entry of that user, including cached misses for its new
+ * username and email. A lookup that raced with a write is not cached.
+ * Listing users is never cached. Writes made elsewhere, such as by other nodes, are reported
+ * through {@link #evict} and {@link #evictAll}.
+ */
+public class CachingUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final UserCacheProperties properties;
+    private final TtlCache<UUID, Optional<User>> byId;
+    private final TtlCache<String, Optional<User>> byUsername;
+    private final TtlCache<String, Optional<User>> byEmail;
+    private final AtomicLong writes = new AtomicLong();
+
+    public CachingUserRepository(UserRepository delegate, UserCacheProperties properties) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.byId = new TtlCache<>(properties.getMaxSize());
+        this.byUsername = new TtlCache<>(properties.getMaxSize());
+        this.byEmail = new TtlCache<>(properties.getMaxSize());
+    }
+
+    @Override
+    public User save(User user) {
+        try {
+            return delegate.save(user);
+        } finally {
+            invalidate(user);
+        }
+    }
+
+    @Override
+    public Optional<User> findById(UUID id) {
+        return lookup(byId, id, () -> delegate.findById(id));
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return lookup(byUsername, username, () -> delegate.findByUsername(username));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return lookup(byEmail, email, () -> delegate.findByEmail(email));
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        Optional<User> user = findById(id);
+        try {
+            delegate.deleteById(id);
+        } finally {
+            writes.incrementAndGet();
+            byId.invalidate(id);
+            user.ifPresent(this::invalidate);
+        }
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return findByUsername(username).isPresent();
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return findByEmail(email).isPresent();
+    }
+
+    @Override
+    public List<User> findAllUsers() {
+        return delegate.findAllUsers();
+    }
+
+    @Override
+    public Optional<User> findFirstUser() {
+        return delegate.findFirstUser();
+    }
+
+    /**
+     * Drops every entry of a user that was written elsewhere. Without the user's current
+     * username and email, entries under them can only be found through the cached user; if
+     * that is gone too, every entry is dropped.
+     *
+     * @param user the user as written, or null if unknown, as for a deleted user
+     */
+    public void evict(UUID id, User user) {
+        writes.incrementAndGet();
+        Optional<User> cached = byId.get(id);
+        byId.invalidate(id);
+        if (cached != null) {
+            cached.ifPresent(this::invalidateKeys);
+        }
+        if (user != null) {
+            invalidateKeys(user);
+        } else if (cached == null || cached.isEmpty()) {
+            evictAll();
+        }
+    }
+
+    /**
+     * Drops every entry, for when writes made elsewhere may have been missed.
+     */
+    public void evictAll() {
+        writes.incrementAndGet();
+        byId.clear();
+        byUsername.clear();
+        byEmail.clear();
+    }
+
+    private <K> Optional<User> lookup(TtlCache<K, Optional<User>> cache, K key, Supplier<Optional<User>> load) {
+        Optional<User> cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long writesBefore = writes.get();
+        Optional<User> user = load.get();
+        if (writes.get() != writesBefore) {
+            return user;
+        }
+        cache.put(key, user, user.isPresent() ? properties.getTtl() : properties.getNegativeTtl());
+        // Index a found user under all of its keys, so that the next lookup by another key hits
+        user.ifPresent(found -> {
+            putIfAbsent(byId, found.id(), found);
+            putIfAbsent(byUsername, found.username(), found);
+            putIfAbsent(byEmail, found.email(), found);
+        });
+        if (writes.get() != writesBefore) {
+            // A write slipped in while caching; drop what may already be stale
+            cache.invalidate(key);
+            user.ifPresent(this::invalidateKeys);
+        }
+        return user;
+    }
+
+    private <K> void putIfAbsent(TtlCache<K, Optional<User>> cache, K key, User user) {
+        if (cache.get(key) == null) {
+            cache.put(key, Optional.of(user), properties.getTtl());
+        }
+    }
+
+    /**
+     * Drops the entries of the user under its new keys and, if it was cached, under its old ones.
+     */
+    private void invalidate(User user) {
+        writes.incrementAndGet();
+        Optional<User> cached = byId.get(user.id());
+        if (cached != null) {
+            cached.ifPresent(this::invalidateKeys);
+        }
+        invalidateKeys(user);
+    }
+
+    private void invalidateKeys(User user) {
+        byId.invalidate(user.id());
+        byUsername.invalidate(user.username());
+        byEmail.invalidate(user.email());
+    }
+}
@@ -1,27 +1,60 @@
 package com.grabduck.taskmanager.repository;
 
+import com.grabduck.taskmanager.domain.CountMode;
 import com.grabduck.taskmanager.domain.Task;
-import com.grabduck.taskmanager.domain.TaskPriority;
-import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+import com.grabduck.taskmanager.domain.TaskPatch;
+import com.grabduck.taskmanager.domain.TaskView;
 import com.grabduck.taskmanager.domain.Page;
-import com.grabduck.taskmanager.domain.SortDirection;
 import com.grabduck.taskmanager.domain.SortOption;
-import com.grabduck.taskmanager.domain.SortField;
+import com.grabduck.taskmanager.repository.inmemory.TaskOrdering;
+import com.grabduck.taskmanager.repository.inmemory.TaskShard;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Thread-safe in-memory task store. Tasks are sharded by owner so that owner-scoped
+ * queries only touch that owner's tasks and its bitmap and trigram indexes, and pages are
+ * cut from per-shard sorted orders without sorting the whole result.
+ * Totals come from the filter bitmaps for free, so every count mode except
+ * {@link CountMode#NONE} reports the exact total. Tasks are held in memory as a whole,
+ * so every {@link TaskView} returns full tasks.
+ */
 @Slf4j
 @Repository
 public class InMemoryTaskRepository implements TaskRepository {
-    private final Map<UUID, Task> tasks = new HashMap<>();
+    private static final int STREAM_CHUNK_SIZE = 256;
+
+    private final ConcurrentMap<UUID, TaskShard> shards = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, UUID> ownerByTaskId = new ConcurrentHashMap<>();
 
     @Override
     public Task save(Task task) {
         log.info("Saving task: {}", task);
-        tasks.put(task.id(), task);
+        // Writes for the same task id are serialized by the map entry, which keeps the
+        // owner lookup and the shard contents consistent when a task changes owner
+        ownerByTaskId.compute(task.id(), (id, previousOwnerId) -> {
+            if (previousOwnerId != null && !previousOwnerId.equals(task.ownerId())) {
+                TaskShard previousShard = shards.get(previousOwnerId);
+                if (previousShard != null) {
+                    previousShard.remove(id);
+                }
+            }
+            shards.computeIfAbsent(task.ownerId(), ownerId -> new TaskShard()).put(task);
+            return task.ownerId();
+        });
         log.info("Task saved successfully");
         return task;
     }
@@ -29,73 +62,237 @@ public class InMemoryTaskRepository implements TaskRepository {
     @Override
     public Optional<Task> findById(UUID id, UUID ownerId) {
         log.info("Finding task by id: {} and ownerId: {}", id, ownerId);
-        Task task = tasks.get(id);
-        if (task == null || (ownerId != null && !ownerId.equals(task.ownerId()))) {
+        UUID shardOwnerId = ownerId != null ? ownerId : ownerByTaskId.get(id);
+        if (shardOwnerId == null) {
             return Optional.empty();
         }
-        return Optional.of(task);
+        TaskShard shard = shards.get(shardOwnerId);
+        return shard != null ? shard.get(id) : Optional.empty();
+    }
+
+    @Override
+    public Optional<Task> update(Task task) {
+        log.info("Updating task: {}", task);
+        return modify(task.id(), task.ownerId(), task.version(), current -> task);
     }
 
     @Override
-    public void deleteById(UUID id, UUID ownerId) {
+    public Optional<Task> patch(UUID id, UUID ownerId, TaskPatch patch) {
+        log.info("Patching task: {} with {}", id, patch);
+        return modify(id, ownerId, patch.version(), patch::applyTo);
+    }
+
+    /**
+     * Replaces the task owned by the owner with the result of the change and increments its
+     * version, if the expected version is null or matches. The version check and the change
+     * run under the shard's write lock, so they cannot interleave with updates by filter. The
+     * shard re-indexes only the fields that changed.
+     */
+    private Optional<Task> modify(UUID id, UUID ownerId, Long expectedVersion, UnaryOperator<Task> change) {
+        AtomicReference<Task> updated = new AtomicReference<>();
+        ownerByTaskId.computeIfPresent(id, (taskId, taskOwnerId) -> {
+            TaskShard shard = shards.get(taskOwnerId);
+            if (!taskOwnerId.equals(ownerId) || shard == null) {
+                return taskOwnerId;
+            }
+            shard.compute(taskId, current -> {
+                long version = current.version() != null ? current.version() : 0L;
+                if (expectedVersion != null && expectedVersion != version) {
+                    return null;
+                }
+                return change.apply(current).withVersion(version + 1);
+            }).ifPresent(updated::set);
+            return taskOwnerId;
+        });
+        return Optional.ofNullable(updated.get());
+    }
+
+    @Override
+    public long deleteById(UUID id, UUID ownerId) {
         log.info("Deleting task by id: {} and ownerId: {}", id, ownerId);
-        Task task = tasks.get(id);
-        if (task != null && (ownerId == null || ownerId.equals(task.ownerId()))) {
-            tasks.remove(id);
+        return delete(id, ownerId, null) == TaskOperationResult.Status.DELETED ? 1 : 0;
+    }
+
+    /**
+     * Removes the task if it belongs to the owner and, if an expected version is given, is still
+     * at that version.
+     *
+     * @return DELETED, NOT_FOUND or CONFLICT
+     */
+    private TaskOperationResult.Status delete(UUID id, UUID ownerId, Long expectedVersion) {
+        AtomicReference<TaskOperationResult.Status> status = new AtomicReference<>(TaskOperationResult.Status.NOT_FOUND);
+        ownerByTaskId.computeIfPresent(id, (taskId, taskOwnerId) -> {
+            if (ownerId != null && !ownerId.equals(taskOwnerId)) {
+                return taskOwnerId;
+            }
+            TaskShard shard = shards.get(taskOwnerId);
+            if (shard == null) {
+                return null;
+            }
+            if (expectedVersion != null) {
+                Optional<Task> current = shard.get(taskId);
+                long version = current.map(task -> task.version() != null ? task.version() : 0L).orElse(0L);
+                if (current.isPresent() && version != expectedVersion) {
+                    status.set(TaskOperationResult.Status.CONFLICT);
+                    return taskOwnerId;
+                }
+            }
+            if (shard.remove(taskId).isPresent()) {
+                status.set(TaskOperationResult.Status.DELETED);
+            }
+            return null;
+        });
+        return status.get();
+    }
+
+    /**
+     * Applies the operations one after another; each one is atomic on its own.
+     */
+    @Override
+    public List<TaskOperationResult> applyBatch(UUID ownerId, List<TaskOperation> operations) {
+        log.info("Applying batch of {} operations for ownerId: {}", operations.size(), ownerId);
+        return operations.stream()
+                .map(operation -> apply(ownerId, operation))
+                .toList();
+    }
+
+    private TaskOperationResult apply(UUID ownerId, TaskOperation operation) {
+        UUID id = operation.taskId();
+        return switch (operation.type()) {
+            case CREATE -> TaskOperationResult.created(save(operation.task()));
+            case UPDATE -> updateResult(ownerId, operation, update(operation.task()));
+            case PATCH -> updateResult(ownerId, operation, patch(id, ownerId, operation.patch()));
+            case DELETE -> switch (delete(id, ownerId, operation.expectedVersion())) {
+                case DELETED -> TaskOperationResult.deleted(id);
+                case CONFLICT -> TaskOperationResult.conflict(id, operation.expectedVersion());
+                default -> TaskOperationResult.notFound(id);
+            };
+        };
+    }
+
+    private TaskOperationResult updateResult(UUID ownerId, TaskOperation operation, Optional<Task> updated) {
+        if (updated.isPresent()) {
+            return TaskOperationResult.updated(updated.get());
+        }
+        return findById(operation.taskId(), ownerId).isPresent()
+                ? TaskOperationResult.conflict(operation.taskId(), operation.expectedVersion())
+                : TaskOperationResult.notFound(operation.taskId());
+    }
+
+    @Override
+    public long updateTasks(UUID ownerId, TaskFilter filter, TaskPatch patch) {
+        log.info("Updating tasks of ownerId: {} matching {} with {}", ownerId, filter, patch);
+        TaskShard shard = shards.get(ownerId);
+        if (shard == null) {
+            return 0;
         }
+        return shard.updateMatching(filter, task -> patch.applyTo(task)
+                .withVersion((task.version() != null ? task.version() : 0L) + 1));
+    }
+
+    @Override
+    public long deleteTasks(UUID ownerId, TaskFilter filter) {
+        log.info("Deleting tasks of ownerId: {} matching {}", ownerId, filter);
+        TaskShard shard = shards.get(ownerId);
+        if (shard == null) {
+            return 0;
+        }
+        List<UUID> removed = shard.removeMatching(filter);
+        // Keep the owner of a task that was saved again in the meantime
+        for (UUID id : removed) {
+            ownerByTaskId.computeIfPresent(id, (taskId, taskOwnerId) ->
+                    taskOwnerId.equals(ownerId) && shard.get(taskId).isEmpty() ? null : taskOwnerId);
+        }
+        return removed.size();
     }
 
     @Override
     public Page<Task> findTasks(
             UUID ownerId,
-            String search,
-            TaskStatus status,
-            TaskPriority priority,
-            String tag,
+            TaskFilter filter,
             int page,
             int size,
-            SortOption sortOption
+            SortOption sortOption,
+            CountMode countMode,
+            TaskView view
+    ) {
+        log.info("Finding tasks with filters: ownerId={}, filter={}", ownerId, filter);
+
+        int offset = (int) Math.min((long) page * size, Integer.MAX_VALUE);
+        List<Task> pagedTasks;
+        long totalElements;
+        if (ownerId != null) {
+            TaskShard shard = shards.get(ownerId);
+            TaskShard.Slice slice = shard != null
+                    ? shard.find(filter, sortOption, offset, size)
+                    : new TaskShard.Slice(Collections.emptyList(), 0);
+            pagedTasks = slice.tasks();
+            totalElements = slice.totalElements();
+        } else {
+            // Every shard contributes its own first offset + size tasks; the page is cut from their merge
+            int limit = (int) Math.min((long) offset + size, Integer.MAX_VALUE);
+            List<Task> merged = new ArrayList<>();
+            totalElements = 0;
+            for (TaskShard shard : shards.values()) {
+                TaskShard.Slice slice = shard.find(filter, sortOption, 0, limit);
+                merged.addAll(slice.tasks());
+                totalElements += slice.totalElements();
+            }
+            merged.sort(TaskOrdering.of(sortOption));
+            pagedTasks = offset < merged.size()
+                    ? merged.subList(offset, Math.min(offset + size, merged.size()))
+                    : Collections.emptyList();
+        }
+
+        return Page.of(pagedTasks, total(totalElements, countMode), size, page);
+    }
+
+    @Override
+    public Page<Task> findTasksAfter(
+            UUID ownerId,
+            TaskFilter filter,
+            TaskCursor cursor,
+            int size,
+            CountMode countMode,
+            TaskView view
     ) {
-        log.info("Finding tasks with filters: ownerId={}, search={}, status={}, priority={}, tag={}", 
-                ownerId, search, status, priority, tag);
-
-        List<Task> filteredTasks = tasks.values().stream()
-                .filter(task -> ownerId == null || ownerId.equals(task.ownerId()))
-                .filter(task -> search == null || 
-                        task.name().toLowerCase().contains(search.toLowerCase()) ||
-                        task.description().toLowerCase().contains(search.toLowerCase()))
-                .filter(task -> status == null || status.equals(task.status()))
-                .filter(task -> priority == null || priority.equals(task.priority()))
-                .filter(task -> tag == null || task.tags().contains(tag))
-                .sorted((t1, t2) -> {
-                    int direction = sortOption.direction().equals(SortDirection.ASC) ? 1 : -1;
-                    switch (sortOption.field()) {
-                        case DUE_DATE:
-                            return direction * Objects.compare(t1.dueDate(), t2.dueDate(), Comparator.nullsLast(Comparator.naturalOrder()));
-                        case NAME:
-                            return direction * t1.name().compareTo(t2.name());
-                        case STATUS:
-                            return direction * t1.status().compareTo(t2.status());
-                        case PRIORITY:
-                            return direction * t1.priority().compareTo(t2.priority());
-                        default:
-                            return 0;
-                    }
-                })
-                .collect(Collectors.toList());
-
-        int start = page * size;
-        int end = Math.min(start + size, filteredTasks.size());
-        List<Task> pagedTasks = start < filteredTasks.size() ? 
-                filteredTasks.subList(start, end) : 
-                Collections.emptyList();
-
-        return new Page<>(
-                pagedTasks,
-                filteredTasks.size(),
-                (int) Math.ceil((double) filteredTasks.size() / size),
-                size,
-                page
-        );
+        log.info("Finding tasks after cursor: ownerId={}, filter={}, cursor={}", ownerId, filter, cursor);
+
+        List<Task> pagedTasks;
+        long totalElements;
+        if (ownerId != null) {
+            TaskShard shard = shards.get(ownerId);
+            TaskShard.Slice slice = shard != null
+                    ? shard.findAfter(filter, cursor, size)
+                    : new TaskShard.Slice(Collections.emptyList(), 0);
+            pagedTasks = slice.tasks();
+            totalElements = slice.totalElements();
+        } else {
+            List<Task> merged = new ArrayList<>();
+            totalElements = 0;
+            for (TaskShard shard : shards.values()) {
+                TaskShard.Slice slice = shard.findAfter(filter, cursor, size);
+                merged.addAll(slice.tasks());
+                totalElements += slice.totalElements();
+            }
+            merged.sort(TaskOrdering.of(cursor.sortOption()));
+            pagedTasks = merged.subList(0, Math.min(size, merged.size()));
+        }
+
+        return Page.of(pagedTasks, total(totalElements, countMode), size, 0);
+    }
+
+    @Override
+    public Stream<Task> streamTasks(UUID ownerId, TaskFilter filter) {
+        log.info("Streaming tasks: ownerId={}, filter={}", ownerId, filter);
+        Stream<TaskShard> selected = ownerId != null
+                ? Stream.ofNullable(shards.get(ownerId))
+                : shards.values().stream();
+        return selected.flatMap(shard -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                shard.iterator(filter, STREAM_CHUNK_SIZE), Spliterator.NONNULL), false));
+    }
+
+    private static Long total(long totalElements, CountMode countMode) {
+        return countMode == CountMode.NONE ? null : totalElements;
     }
 }
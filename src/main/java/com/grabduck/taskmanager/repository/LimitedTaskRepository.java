@@ -0,0 +1,102 @@
+package com.grabduck.taskmanager.repository;
+
+import com.grabduck.taskmanager.domain.CountMode;
+import com.grabduck.taskmanager.domain.Page;
+import com.grabduck.taskmanager.domain.SortOption;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+import com.grabduck.taskmanager.domain.TaskPatch;
+import com.grabduck.taskmanager.domain.TaskView;
+import com.grabduck.taskmanager.util.ConcurrencyLimiter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Runs every call of another task repository under a {@link ConcurrencyLimiter}. A stream only
+ * holds its permit while it is opened; reading it is not limited.
+ */
+public class LimitedTaskRepository implements TaskRepository {
+    private final TaskRepository delegate;
+    private final ConcurrencyLimiter limiter;
+
+    public LimitedTaskRepository(TaskRepository delegate, ConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Task save(Task task) {
+        return limiter.call(() -> delegate.save(task));
+    }
+
+    @Override
+    public Optional<Task> findById(UUID id, UUID ownerId) {
+        return limiter.call(() -> delegate.findById(id, ownerId));
+    }
+
+    @Override
+    public Optional<Task> update(Task task) {
+        return limiter.call(() -> delegate.update(task));
+    }
+
+    @Override
+    public Optional<Task> patch(UUID id, UUID ownerId, TaskPatch patch) {
+        return limiter.call(() -> delegate.patch(id, ownerId, patch));
+    }
+
+    @Override
+    public long deleteById(UUID id, UUID ownerId) {
+        return limiter.call(() -> delegate.deleteById(id, ownerId));
+    }
+
+    @Override
+    public List<TaskOperationResult> applyBatch(UUID ownerId, List<TaskOperation> operations) {
+        return limiter.call(() -> delegate.applyBatch(ownerId, operations));
+    }
+
+    @Override
+    public long updateTasks(UUID ownerId, TaskFilter filter, TaskPatch patch) {
+        return limiter.call(() -> delegate.updateTasks(ownerId, filter, patch));
+    }
+
+    @Override
+    public long deleteTasks(UUID ownerId, TaskFilter filter) {
+        return limiter.call(() -> delegate.deleteTasks(ownerId, filter));
+    }
+
+    @Override
+    public Page<Task> findTasks(
+            UUID ownerId,
+            TaskFilter filter,
+            int page,
+            int size,
+            SortOption sortOption,
+            CountMode countMode,
+            TaskView view
+    ) {
+        return limiter.call(() -> delegate.findTasks(ownerId, filter, page, size, sortOption, countMode, view));
+    }
+
+    @Override
+    public Page<Task> findTasksAfter(
+            UUID ownerId,
+            TaskFilter filter,
+            TaskCursor cursor,
+            int size,
+            CountMode countMode,
+            TaskView view
+    ) {
+        return limiter.call(() -> delegate.findTasksAfter(ownerId, filter, cursor, size, countMode, view));
+    }
+
+    @Override
+    public Stream<Task> streamTasks(UUID ownerId, TaskFilter filter) {
+        return limiter.call(() -> delegate.streamTasks(ownerId, filter));
+    }
+}
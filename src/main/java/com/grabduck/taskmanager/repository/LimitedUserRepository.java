@@ -0,0 +1,66 @@
+package com.grabduck.taskmanager.repository;
+
+import com.grabduck.taskmanager.domain.User;
+import com.grabduck.taskmanager.util.ConcurrencyLimiter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Runs every call of another user repository under a {@link ConcurrencyLimiter}.
+ */
+public class LimitedUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final ConcurrencyLimiter limiter;
+
+    public LimitedUserRepository(UserRepository delegate, ConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public User save(User user) {
+        return limiter.call(() -> delegate.save(user));
+    }
+
+    @Override
+    public Optional<User> findById(UUID id) {
+        return limiter.call(() -> delegate.findById(id));
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return limiter.call(() -> delegate.findByUsername(username));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return limiter.call(() -> delegate.findByEmail(email));
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        limiter.run(() -> delegate.deleteById(id));
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return limiter.call(() -> delegate.existsByUsername(username));
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return limiter.call(() -> delegate.existsByEmail(email));
+    }
+
+    @Override
+    public List<User> findAllUsers() {
+        return limiter.call(delegate::findAllUsers);
+    }
+
+    @Override
+    public Optional<User> findFirstUser() {
+        return limiter.call(delegate::findFirstUser);
+    }
+}
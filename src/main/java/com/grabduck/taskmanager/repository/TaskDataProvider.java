@@ -1,52 +1,75 @@
 package com.grabduck.taskmanager.repository;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.grabduck.taskmanager.config.SeedProperties;
 import com.grabduck.taskmanager.domain.Task;
-import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collections;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Reads the sample tasks used to seed an empty database. The JSON array is parsed as a stream,
+ * one task at a time, and handed out in batches; no more than one batch is held in memory
+ * by the reader and nothing is kept once reading is done.
+ */
 @Slf4j
 @Component
 public class TaskDataProvider {
-    private static final String TASKS_JSON_PATH = "tasks.json";
-    private final ObjectMapper objectMapper;
-    private List<Task> tasks;
+    private final ObjectReader taskReader;
+    private final ResourceLoader resourceLoader;
+    private final SeedProperties seedProperties;
 
-    public TaskDataProvider() {
-        this.objectMapper = new ObjectMapper()
-                .registerModule(new JavaTimeModule());
-        this.tasks = Collections.emptyList();
+    public TaskDataProvider(ResourceLoader resourceLoader, SeedProperties seedProperties) {
+        this.taskReader = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .readerFor(Task.class);
+        this.resourceLoader = resourceLoader;
+        this.seedProperties = seedProperties;
     }
 
-    @PostConstruct
-    public void init() {
-        loadTasks();
-    }
-
-    private void loadTasks() {
-        try {
-            ClassPathResource resource = new ClassPathResource(TASKS_JSON_PATH);
-            try (InputStream inputStream = resource.getInputStream()) {
-                List<Task> loadedTasks = objectMapper.readValue(inputStream, new TypeReference<List<Task>>() {});
-                tasks = Collections.unmodifiableList(loadedTasks);
-                log.info("Successfully loaded {} tasks from {}", tasks.size(), TASKS_JSON_PATH);
+    /**
+     * Streams the tasks and passes them to the consumer in batches of at most {@code batchSize}.
+     * The consumer may keep a batch; a new list is started for the next one.
+     *
+     * @return the number of tasks read
+     * @throws UncheckedIOException if the tasks cannot be read or are not a JSON array of tasks
+     */
+    public long forEachBatch(int batchSize, Consumer<List<Task>> batchConsumer) {
+        Resource resource = resourceLoader.getResource(seedProperties.getLocation());
+        try (InputStream inputStream = resource.getInputStream();
+             JsonParser parser = taskReader.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of tasks in " + seedProperties.getLocation());
+            }
+            long count = 0;
+            List<Task> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(taskReader.readValue(parser));
+                count++;
+                if (batch.size() == batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
             }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+            log.info("Read {} tasks from {}", count, seedProperties.getLocation());
+            return count;
         } catch (IOException e) {
-            log.error("Failed to load tasks from {}", TASKS_JSON_PATH, e);
-            tasks = Collections.emptyList();
+            throw new UncheckedIOException("Failed to read tasks from " + seedProperties.getLocation(), e);
         }
     }
-
-    public List<Task> getTasks() {
-        return tasks;
-    }
 }
@@ -1,13 +1,20 @@
 package com.grabduck.taskmanager.repository;
 
+import com.grabduck.taskmanager.domain.CountMode;
 import com.grabduck.taskmanager.domain.Task;
-import com.grabduck.taskmanager.domain.TaskPriority;
-import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+import com.grabduck.taskmanager.domain.TaskPatch;
+import com.grabduck.taskmanager.domain.TaskView;
 import com.grabduck.taskmanager.domain.Page;
 import com.grabduck.taskmanager.domain.SortOption;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TaskRepository {
     Task save(Task task);
@@ -15,23 +22,89 @@ public interface TaskRepository {
      * Find a task by ID. If ownerId is provided, only returns the task if it belongs to that owner.
      */
     Optional<Task> findById(UUID id, UUID ownerId);
+    /**
+     * Atomically replace the fields of an existing task that belongs to the task's owner and
+     * increment its version. If the task carries a version, the task is only updated while the
+     * stored version still matches.
+     *
+     * @return the updated task with its new version, or empty if no task with that id, owner
+     *         and version exists
+     */
+    Optional<Task> update(Task task);
+    /**
+     * Atomically apply a sparse update to a task that belongs to the owner and increment its
+     * version. Only the fields set in the patch are written. If the patch carries a version,
+     * the task is only updated while the stored version still matches.
+     *
+     * @return the patched task with its new version, or empty if no task with that id, owner
+     *         and version exists
+     */
+    Optional<Task> patch(UUID id, UUID ownerId, TaskPatch patch);
     /**
      * Delete a task by ID. If ownerId is provided, only deletes the task if it belongs to that owner.
+     *
+     * @return the number of deleted tasks
+     */
+    long deleteById(UUID id, UUID ownerId);
+    /**
+     * Apply a batch of creates, updates, patches and deletes to the tasks of one owner.
+     * Updates, patches and deletes only apply to tasks of that owner, and each task may appear
+     * at most once. Operations do not depend on each other: one that fails does not stop the rest.
+     *
+     * @return the result of every operation, in the order of the operations
+     */
+    List<TaskOperationResult> applyBatch(UUID ownerId, List<TaskOperation> operations);
+    /**
+     * Apply the patch to every task of the owner that matches the filter, in a single pass,
+     * and increment their versions. The version of the patch is not used.
+     *
+     * @return the number of updated tasks
+     */
+    long updateTasks(UUID ownerId, TaskFilter filter, TaskPatch patch);
+    /**
+     * Delete every task of the owner that matches the filter, in a single pass.
+     *
+     * @return the number of deleted tasks
      */
-    void deleteById(UUID id, UUID ownerId);
+    long deleteTasks(UUID ownerId, TaskFilter filter);
 
     /**
      * Find tasks with optional filtering and pagination.
      * If ownerId is provided, only tasks belonging to that owner will be returned.
+     * The count mode decides whether the page carries an exact, estimated or no total.
+     * With {@link TaskView#SUMMARY} the tasks may be loaded without their description.
      */
     Page<Task> findTasks(
             UUID ownerId,
-            String search,
-            TaskStatus status,
-            TaskPriority priority,
-            String tag,
+            TaskFilter filter,
             int page,
             int size,
-            SortOption sortOption
+            SortOption sortOption,
+            CountMode countMode,
+            TaskView view
     );
+
+    /**
+     * Find the tasks that follow the cursor in the cursor's sort order (keyset pagination).
+     * Resumes with a range predicate on the sort key and task id, so the cost of a page does not
+     * grow with its position and concurrent inserts do not shift later pages.
+     * The total, if requested by the count mode, counts every task matching the filter;
+     * the returned page always has page number 0.
+     * If ownerId is provided, only tasks belonging to that owner will be returned.
+     */
+    Page<Task> findTasksAfter(
+            UUID ownerId,
+            TaskFilter filter,
+            TaskCursor cursor,
+            int size,
+            CountMode countMode,
+            TaskView view
+    );
+
+    /**
+     * Stream every task matching the filter, in no particular order, without loading them all
+     * into memory. If ownerId is provided, only tasks belonging to that owner are streamed.
+     * The stream holds a cursor on the underlying store and must be closed.
+     */
+    Stream<Task> streamTasks(UUID ownerId, TaskFilter filter);
 }
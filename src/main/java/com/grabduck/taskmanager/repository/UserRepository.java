@@ -14,4 +14,8 @@ public interface UserRepository {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     List<User> findAllUsers();
+    /**
+     * Find the user that was created first, without loading any other user.
+     */
+    Optional<User> findFirstUser();
 }
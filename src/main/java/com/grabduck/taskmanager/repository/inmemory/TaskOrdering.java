@@ -0,0 +1,81 @@
+package com.grabduck.taskmanager.repository.inmemory;
+
+import com.grabduck.taskmanager.domain.SortDirection;
+import com.grabduck.taskmanager.domain.SortField;
+import com.grabduck.taskmanager.domain.SortOption;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskPriority;
+import com.grabduck.taskmanager.domain.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Total orderings of tasks for each sort option. Ties on the sort field are broken by task id,
+ * so that every task has a stable position and pages never overlap.
+ * Comparators are built once and shared, instead of branching on the sort field per comparison.
+ */
+public final class TaskOrdering {
+    private static final Map<SortField, Comparator<Task>> ASCENDING = new EnumMap<>(SortField.class);
+    private static final Map<SortField, Comparator<Task>> DESCENDING = new EnumMap<>(SortField.class);
+
+    static {
+        for (SortField field : SortField.values()) {
+            Comparator<Task> ascending = byField(field).thenComparing(Task::id);
+            ASCENDING.put(field, ascending);
+            DESCENDING.put(field, ascending.reversed());
+        }
+    }
+
+    private TaskOrdering() {
+    }
+
+    /**
+     * Returns the ordering for the given sort option.
+     */
+    public static Comparator<Task> of(SortOption sortOption) {
+        return sortOption.direction() == SortDirection.ASC
+                ? ASCENDING.get(sortOption.field())
+                : DESCENDING.get(sortOption.field());
+    }
+
+    /**
+     * Returns the ascending ordering for the given sort field.
+     */
+    public static Comparator<Task> ascending(SortField field) {
+        return ASCENDING.get(field);
+    }
+
+    /**
+     * Returns a task that sorts exactly at the cursor position. Only the cursor's sort field
+     * and the id are meaningful; the other fields carry placeholder values that the
+     * orderings never look at.
+     */
+    public static Task probe(TaskCursor cursor) {
+        Object value = cursor.sortValue();
+        SortField field = cursor.sortOption().field();
+        return new Task(
+                cursor.lastId(),
+                field == SortField.NAME ? (String) value : "",
+                null,
+                field == SortField.DUE_DATE ? (LocalDateTime) value : null,
+                field == SortField.STATUS ? (TaskStatus) value : TaskStatus.NOT_STARTED,
+                field == SortField.PRIORITY ? (TaskPriority) value : TaskPriority.LOW,
+                Set.of(),
+                cursor.lastId()
+        );
+    }
+
+    private static Comparator<Task> byField(SortField field) {
+        return switch (field) {
+            case DUE_DATE -> Comparator.comparing(Task::dueDate, Comparator.nullsLast(Comparator.naturalOrder()));
+            case NAME -> Comparator.comparing(Task::name);
+            case STATUS -> Comparator.comparing(Task::status);
+            case PRIORITY -> Comparator.comparing(Task::priority);
+        };
+    }
+}
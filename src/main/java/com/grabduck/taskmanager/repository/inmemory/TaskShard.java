@@ -0,0 +1,498 @@
+package com.grabduck.taskmanager.repository.inmemory;
+
+import com.grabduck.taskmanager.domain.SortDirection;
+import com.grabduck.taskmanager.domain.SortField;
+import com.grabduck.taskmanager.domain.SortOption;
+import com.grabduck.taskmanager.domain.TagMatch;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskPriority;
+import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.util.Trigrams;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * All tasks of a single owner together with bitmap indexes on status, priority and tags,
+ * and a trigram index over name and description for substring search.
+ * Every task gets a dense ordinal within the shard; ordinals of deleted tasks are reused,
+ * so the bitmaps stay as small as the owner's task count. Filters are evaluated as
+ * bitmap intersections and unions before any task is touched.
+ * For every sort field the shard also keeps the tasks in sorted order, so a page is served
+ * by walking that order from the start (or end, for descending sorts) and skipping tasks
+ * outside the filter bitmap. When the filter is so selective that the walk would visit far more
+ * tasks than it matches, a bounded heap over the matches picks the page instead.
+ * Keyset pages start the same walk right after the cursor position in the sorted order.
+ * Reads and writes are guarded by a read/write lock, so queries for one owner only contend
+ * with writes to that same owner.
+ */
+public class TaskShard {
+    private static final BitSet EMPTY = new BitSet();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private final List<Task> tasks = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<TaskStatus, BitSet> byStatus = new EnumMap<>(TaskStatus.class);
+    private final Map<TaskPriority, BitSet> byPriority = new EnumMap<>(TaskPriority.class);
+    private final Map<String, BitSet> byTag = new HashMap<>();
+    private final TrigramIndex searchIndex = new TrigramIndex();
+    private final Map<SortField, NavigableSet<Entry>> sorted = new EnumMap<>(SortField.class);
+
+    /**
+     * One page of a shard query together with the total number of matching tasks.
+     */
+    public record Slice(List<Task> tasks, int totalElements) {}
+
+    /**
+     * Position of a task in a sort order. The task only serves as the sort key: after an
+     * in-place update that kept the key, it may be an earlier version of the task, so the
+     * current task is always looked up by ordinal.
+     */
+    private record Entry(Task task, int ordinal) {}
+
+    public TaskShard() {
+        for (SortField field : SortField.values()) {
+            Comparator<Task> order = TaskOrdering.ascending(field);
+            sorted.put(field, new TreeSet<>(Comparator.comparing(Entry::task, order)));
+        }
+    }
+
+    /**
+     * Stores the task, replacing any previous version with the same id. A replaced task is
+     * re-indexed in place: only the bitmaps, trigrams and sort orders of the fields that
+     * changed are touched, so a status flip costs two bit flips and one sort order move.
+     *
+     * @return the previous version of the task, if any
+     */
+    public Optional<Task> put(Task task) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(task.id());
+            if (ordinal != null) {
+                Task previous = tasks.set(ordinal, task);
+                reindex(ordinal, previous, task);
+                return Optional.of(previous);
+            }
+            ordinal = live.nextClearBit(0);
+            ordinals.put(task.id(), ordinal);
+            if (ordinal == tasks.size()) {
+                tasks.add(null);
+            }
+            tasks.set(ordinal, task);
+            index(ordinal, task);
+            return Optional.empty();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the task with the given id.
+     *
+     * @return the removed task, if it was present
+     */
+    public Optional<Task> remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return Optional.empty();
+            }
+            Task removed = tasks.set(ordinal, null);
+            unindex(ordinal, removed);
+            return Optional.of(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Iterates over the tasks matching the filter, in no particular order, without holding the
+     * lock while the caller consumes them. The matches are resolved to a bitmap up front, and the
+     * tasks are then copied out in chunks of {@code chunkSize} under a short read lock each.
+     * Every task is checked against the filter again when its chunk is read, so the iterator
+     * never returns a task that does not match; tasks changed during the iteration may or may
+     * not be included.
+     */
+    public Iterator<Task> iterator(TaskFilter filter, int chunkSize) {
+        String needle = filter.search() != null ? Trigrams.normalize(filter.search()) : null;
+        BitSet matches;
+        lock.readLock().lock();
+        try {
+            matches = matching(filter, needle);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return new Iterator<>() {
+            private final Deque<Task> chunk = new ArrayDeque<>(chunkSize);
+            private int next = matches.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                if (chunk.isEmpty()) {
+                    readChunk();
+                }
+                return !chunk.isEmpty();
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunk.poll();
+            }
+
+            private void readChunk() {
+                lock.readLock().lock();
+                try {
+                    while (next >= 0 && chunk.size() < chunkSize) {
+                        if (matchesAt(next, filter, needle)) {
+                            chunk.add(tasks.get(next));
+                        }
+                        next = matches.nextSetBit(next + 1);
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        };
+    }
+
+    /**
+     * Replaces the task with the given id with the result of the change, reading, changing and
+     * re-indexing it under a single write lock, so no other write to the shard can slip in
+     * between. The change must keep the task's id, and may return null to leave the task as is.
+     *
+     * @return the new version of the task, or empty if there is no such task or it was left as is
+     */
+    public Optional<Task> compute(UUID id, UnaryOperator<Task> change) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                return Optional.empty();
+            }
+            Task previous = tasks.get(ordinal);
+            Task task = change.apply(previous);
+            if (task == null) {
+                return Optional.empty();
+            }
+            tasks.set(ordinal, task);
+            reindex(ordinal, previous, task);
+            return Optional.of(task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces every task matching the filter with the result of the change, in one pass over
+     * the filter bitmap under a single write lock. The change must keep the task's id.
+     *
+     * @return the number of updated tasks
+     */
+    public int updateMatching(TaskFilter filter, UnaryOperator<Task> change) {
+        String needle = filter.search() != null ? Trigrams.normalize(filter.search()) : null;
+        lock.writeLock().lock();
+        try {
+            BitSet matches = matching(filter, needle);
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                Task previous = tasks.get(ordinal);
+                Task task = change.apply(previous);
+                tasks.set(ordinal, task);
+                reindex(ordinal, previous, task);
+            }
+            return matches.cardinality();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every task matching the filter under a single write lock.
+     *
+     * @return the ids of the removed tasks
+     */
+    public List<UUID> removeMatching(TaskFilter filter) {
+        String needle = filter.search() != null ? Trigrams.normalize(filter.search()) : null;
+        lock.writeLock().lock();
+        try {
+            BitSet matches = matching(filter, needle);
+            List<UUID> removed = new ArrayList<>(matches.cardinality());
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                Task task = tasks.set(ordinal, null);
+                ordinals.remove(task.id());
+                unindex(ordinal, task);
+                removed.add(task.id());
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Task> get(UUID id) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            return ordinal != null ? Optional.of(tasks.get(ordinal)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the tasks matching the filter in the given order, skipping {@code offset} matches
+     * and returning at most {@code limit}. Status, priority and tag filters are resolved purely
+     * on bitmaps; a search term narrows the candidates through the trigram index and is then
+     * verified against the normalized name and description.
+     */
+    public Slice find(TaskFilter filter, SortOption sortOption, int offset, int limit) {
+        return find(filter, sortOption, null, offset, limit);
+    }
+
+    /**
+     * Returns at most {@code limit} tasks matching the filter that come after the cursor
+     * in the cursor's sort order. The total still counts every task matching the filter.
+     */
+    public Slice findAfter(TaskFilter filter, TaskCursor cursor, int limit) {
+        return find(filter, cursor.sortOption(), TaskOrdering.probe(cursor), 0, limit);
+    }
+
+    private Slice find(TaskFilter filter, SortOption sortOption, Task after, int offset, int limit) {
+        String needle = filter.search() != null ? Trigrams.normalize(filter.search()) : null;
+        lock.readLock().lock();
+        try {
+            BitSet matches = matching(filter, needle);
+            int total = matches.cardinality();
+            if (offset >= total || limit <= 0) {
+                return new Slice(Collections.emptyList(), total);
+            }
+            int wanted = (int) Math.min((long) offset + limit, total);
+            List<Task> page = shouldWalk(total, wanted)
+                    ? walk(matches, entries(sortOption, after), offset, limit)
+                    : topK(matches, TaskOrdering.of(sortOption), after, offset, wanted);
+            return new Slice(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walking the sorted order visits about {@code wanted * size / total} tasks; the heap visits
+     * every match once. Walk whenever that is not more than the number of matches.
+     */
+    private boolean shouldWalk(int total, int wanted) {
+        return (long) wanted * ordinals.size() <= (long) total * total;
+    }
+
+    private Iterator<Entry> entries(SortOption sortOption, Task after) {
+        NavigableSet<Entry> order = sorted.get(sortOption.field());
+        boolean ascending = sortOption.direction() == SortDirection.ASC;
+        if (after == null) {
+            return ascending ? order.iterator() : order.descendingIterator();
+        }
+        Entry probe = new Entry(after, -1);
+        return ascending
+                ? order.tailSet(probe, false).iterator()
+                : order.headSet(probe, false).descendingIterator();
+    }
+
+    private List<Task> walk(BitSet matches, Iterator<Entry> entries, int offset, int limit) {
+        List<Task> page = new ArrayList<>(limit);
+        int skipped = 0;
+        while (entries.hasNext() && page.size() < limit) {
+            Entry entry = entries.next();
+            if (!matches.get(entry.ordinal())) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(tasks.get(entry.ordinal()));
+            }
+        }
+        return page;
+    }
+
+    private List<Task> topK(BitSet matches, Comparator<Task> order, Task after, int offset, int wanted) {
+        PriorityQueue<Task> heap = new PriorityQueue<>(wanted + 1, order.reversed());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            Task task = tasks.get(ordinal);
+            if (after != null && order.compare(task, after) <= 0) {
+                continue;
+            }
+            heap.offer(task);
+            if (heap.size() > wanted) {
+                heap.poll();
+            }
+        }
+        List<Task> top = new ArrayList<>(heap);
+        top.sort(order);
+        return offset < top.size() ? top.subList(offset, top.size()) : Collections.emptyList();
+    }
+
+    /**
+     * Resolves the filter to the exact set of matching ordinals.
+     */
+    private BitSet matching(TaskFilter filter, String needle) {
+        BitSet matches = (BitSet) live.clone();
+        if (filter.status() != null) {
+            matches.and(byStatus.getOrDefault(filter.status(), EMPTY));
+        }
+        if (filter.priority() != null) {
+            matches.and(byPriority.getOrDefault(filter.priority(), EMPTY));
+        }
+        if (!filter.tags().isEmpty()) {
+            if (filter.tagMatch() == TagMatch.ALL) {
+                for (String tag : filter.tags()) {
+                    matches.and(byTag.getOrDefault(tag, EMPTY));
+                }
+            } else {
+                BitSet anyTag = new BitSet();
+                for (String tag : filter.tags()) {
+                    anyTag.or(byTag.getOrDefault(tag, EMPTY));
+                }
+                matches.and(anyTag);
+            }
+        }
+        if (needle != null && !matches.isEmpty()) {
+            BitSet searchCandidates = searchIndex.candidates(needle);
+            if (searchCandidates != null) {
+                matches.and(searchCandidates);
+            }
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                if (!searchIndex.matches(ordinal, needle)) {
+                    matches.clear(ordinal);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Checks a single ordinal against the filter, for matches resolved before the lock was released.
+     */
+    private boolean matchesAt(int ordinal, TaskFilter filter, String needle) {
+        if (!live.get(ordinal)
+                || filter.status() != null && !byStatus.getOrDefault(filter.status(), EMPTY).get(ordinal)
+                || filter.priority() != null && !byPriority.getOrDefault(filter.priority(), EMPTY).get(ordinal)) {
+            return false;
+        }
+        if (!filter.tags().isEmpty()) {
+            boolean all = filter.tagMatch() == TagMatch.ALL;
+            boolean matched = all;
+            for (String tag : filter.tags()) {
+                boolean tagged = byTag.getOrDefault(tag, EMPTY).get(ordinal);
+                matched = all ? matched && tagged : matched || tagged;
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return needle == null || searchIndex.matches(ordinal, needle);
+    }
+
+    private void index(int ordinal, Task task) {
+        live.set(ordinal);
+        byStatus.computeIfAbsent(task.status(), s -> new BitSet()).set(ordinal);
+        byPriority.computeIfAbsent(task.priority(), p -> new BitSet()).set(ordinal);
+        for (String tag : task.tags()) {
+            byTag.computeIfAbsent(tag, t -> new BitSet()).set(ordinal);
+        }
+        searchIndex.add(ordinal, task);
+        Entry entry = new Entry(task, ordinal);
+        for (NavigableSet<Entry> order : sorted.values()) {
+            order.add(entry);
+        }
+    }
+
+    private void unindex(int ordinal, Task task) {
+        live.clear(ordinal);
+        clearInIndex(byStatus, task.status(), ordinal);
+        clearInIndex(byPriority, task.priority(), ordinal);
+        for (String tag : task.tags()) {
+            clearInIndex(byTag, tag, ordinal);
+        }
+        searchIndex.remove(ordinal, task);
+        Entry entry = new Entry(task, ordinal);
+        for (NavigableSet<Entry> order : sorted.values()) {
+            order.remove(entry);
+        }
+    }
+
+    private void reindex(int ordinal, Task previous, Task task) {
+        if (previous.status() != task.status()) {
+            clearInIndex(byStatus, previous.status(), ordinal);
+            byStatus.computeIfAbsent(task.status(), s -> new BitSet()).set(ordinal);
+        }
+        if (previous.priority() != task.priority()) {
+            clearInIndex(byPriority, previous.priority(), ordinal);
+            byPriority.computeIfAbsent(task.priority(), p -> new BitSet()).set(ordinal);
+        }
+        for (String tag : previous.tags()) {
+            if (!task.tags().contains(tag)) {
+                clearInIndex(byTag, tag, ordinal);
+            }
+        }
+        for (String tag : task.tags()) {
+            if (!previous.tags().contains(tag)) {
+                byTag.computeIfAbsent(tag, t -> new BitSet()).set(ordinal);
+            }
+        }
+        if (!Objects.equals(previous.name(), task.name())
+                || !Objects.equals(previous.description(), task.description())) {
+            searchIndex.remove(ordinal, previous);
+            searchIndex.add(ordinal, task);
+        }
+        for (Map.Entry<SortField, NavigableSet<Entry>> order : sorted.entrySet()) {
+            if (TaskOrdering.ascending(order.getKey()).compare(previous, task) != 0) {
+                order.getValue().remove(new Entry(previous, ordinal));
+                order.getValue().add(new Entry(task, ordinal));
+            }
+        }
+    }
+
+    private static <K> void clearInIndex(Map<K, BitSet> index, K key, int ordinal) {
+        BitSet ordinals = index.get(key);
+        if (ordinals != null) {
+            ordinals.clear(ordinal);
+            if (ordinals.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
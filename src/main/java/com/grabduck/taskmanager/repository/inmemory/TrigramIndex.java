@@ -0,0 +1,82 @@
+package com.grabduck.taskmanager.repository.inmemory;
+
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.util.Trigrams;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted trigram index over task names and descriptions, keyed by the dense task
+ * ordinals of the owning {@link TaskShard}. The normalized text of every task is kept
+ * so that matching never lower-cases task fields on the query path.
+ * Not thread-safe; guarded by the owning shard.
+ */
+class TrigramIndex {
+    private final Map<String, BitSet> postings = new HashMap<>();
+    private final List<IndexedText> texts = new ArrayList<>();
+
+    private record IndexedText(String name, String description) {
+        boolean contains(String needle) {
+            return name.contains(needle) || description.contains(needle);
+        }
+    }
+
+    void add(int ordinal, Task task) {
+        while (texts.size() <= ordinal) {
+            texts.add(null);
+        }
+        texts.set(ordinal, new IndexedText(Trigrams.normalize(task.name()), Trigrams.normalize(task.description())));
+        for (String trigram : Trigrams.ofTask(task.name(), task.description())) {
+            postings.computeIfAbsent(trigram, t -> new BitSet()).set(ordinal);
+        }
+    }
+
+    void remove(int ordinal, Task task) {
+        texts.set(ordinal, null);
+        for (String trigram : Trigrams.ofTask(task.name(), task.description())) {
+            BitSet ordinals = postings.get(trigram);
+            if (ordinals != null) {
+                ordinals.clear(ordinal);
+                if (ordinals.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ordinals of tasks containing every trigram of the normalized search term,
+     * or null if the term is too short to narrow the candidates.
+     * The result is a superset of the actual matches; use {@link #matches} to verify.
+     */
+    BitSet candidates(String needle) {
+        if (!Trigrams.isSearchable(needle)) {
+            return null;
+        }
+        BitSet result = null;
+        for (String trigram : Trigrams.of(needle)) {
+            BitSet ordinals = postings.get(trigram);
+            if (ordinals == null) {
+                return new BitSet();
+            }
+            if (result == null) {
+                result = (BitSet) ordinals.clone();
+            } else {
+                result.and(ordinals);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the task's name or description contains the normalized search term.
+     */
+    boolean matches(int ordinal, String needle) {
+        IndexedText text = ordinal < texts.size() ? texts.get(ordinal) : null;
+        return text != null && text.contains(needle);
+    }
+}
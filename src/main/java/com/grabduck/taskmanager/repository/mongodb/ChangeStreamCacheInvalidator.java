@@ -0,0 +1,240 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.config.CacheInvalidationProperties;
+import com.grabduck.taskmanager.domain.User;
+import com.grabduck.taskmanager.repository.CachingTaskRepository;
+import com.grabduck.taskmanager.repository.CachingUserRepository;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Follows the writes to the {@code tasks} and {@code users} collections through a change stream
+ * and evicts the written tasks and users from the local caches, so that several nodes can cache
+ * in front of the same database. The stream is opened after startup on a background thread and
+ * resumes after a failure from the last change it saw, so no change is skipped while it is
+ * reopened. Whenever it cannot resume, including the first time it is opened, every cache is
+ * cleared instead, as writes made until then may have been missed. Resume tokens are only kept
+ * in memory, since the caches of a restarted node start out empty.
+ * <p>
+ * Changes made by this node come back through the stream too and evict their entries a second
+ * time. The owner or username a document had before a change is only known if the collection
+ * records pre-images; without it, deletes invalidate the cached pages of all owners. A change
+ * that cannot be applied, such as a document this application did not write, clears every
+ * cache, so that the stream never stops and leaves the caches stale.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangeStreamCacheInvalidator {
+    static final String TASKS_COLLECTION = "tasks";
+    static final String USERS_COLLECTION = "users";
+    /**
+     * Resuming failed because the oplog no longer holds the change the stream stopped at
+     */
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+
+    private final MongoTemplate mongoTemplate;
+    private final CachingTaskRepository taskRepository;
+    private final CachingUserRepository userRepository;
+    private final TaskCountCache countCache;
+    private final CacheInvalidationProperties properties;
+
+    private volatile boolean running;
+    private volatile Thread thread;
+    private BsonDocument resumeToken;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Change stream cache invalidation is disabled");
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listen, "cache-invalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread listener = thread;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open()) {
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null && !applySafely(change)) {
+                        // The stream was invalidated and is closed; start a new one
+                        resumeToken = null;
+                        break;
+                    }
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                if (e instanceof MongoCommandException command
+                        && (command.getErrorCode() == CHANGE_STREAM_HISTORY_LOST
+                        || command.getErrorCode() == CHANGE_STREAM_FATAL_ERROR)) {
+                    resumeToken = null;
+                }
+                log.warn("Change stream failed, reopening in {}", properties.getRetryDelay(), e);
+                try {
+                    Thread.sleep(properties.getRetryDelay().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the change stream after the last change seen, or from now on after clearing every cache.
+     */
+    MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", TASKS_COLLECTION, USERS_COLLECTION))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+                .maxAwaitTime(properties.getMaxAwaitTime().toMillis(), TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            log.info("Resuming change stream cache invalidation");
+            return stream.resumeAfter(resumeToken).cursor();
+        }
+        // The cursor is open before the caches are cleared, so no write falls in between
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor();
+        evictAll();
+        log.info("Started change stream cache invalidation");
+        return cursor;
+    }
+
+    /**
+     * Applies the change, or clears every cache if it cannot be applied.
+     *
+     * @return false if the change ends the stream
+     */
+    private boolean applySafely(ChangeStreamDocument<Document> change) {
+        try {
+            return apply(change);
+        } catch (RuntimeException e) {
+            log.warn("Failed to apply change {} to the caches, clearing them", change.getDocumentKey(), e);
+            evictAll();
+            return true;
+        }
+    }
+
+    /**
+     * Evicts what the change wrote from the caches.
+     *
+     * @return false if the change ends the stream
+     */
+    boolean apply(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE, DELETE -> {
+                String collection = change.getNamespace().getCollectionName();
+                UUID id = documentId(change.getDocumentKey());
+                if (id == null) {
+                    evictAll();
+                } else if (TASKS_COLLECTION.equals(collection)) {
+                    evictTask(id, change);
+                } else if (USERS_COLLECTION.equals(collection)) {
+                    evictUser(id, change);
+                }
+                return true;
+            }
+            case DROP, RENAME, DROP_DATABASE -> {
+                evictAll();
+                return true;
+            }
+            case INVALIDATE -> {
+                evictAll();
+                return false;
+            }
+            default -> {
+                return true;
+            }
+        }
+    }
+
+    private void evictTask(UUID id, ChangeStreamDocument<Document> change) {
+        Set<String> owners = new HashSet<>();
+        Stream.of(change.getFullDocument(), change.getFullDocumentBeforeChange())
+                .filter(document -> document != null && document.getString("owner_id") != null)
+                .forEach(document -> owners.add(document.getString("owner_id")));
+        if (owners.isEmpty()) {
+            taskRepository.evict(id, null);
+            countCache.evict(null);
+            return;
+        }
+        for (String ownerId : owners) {
+            taskRepository.evict(id, UUID.fromString(ownerId));
+            countCache.evict(ownerId);
+        }
+    }
+
+    private void evictUser(UUID id, ChangeStreamDocument<Document> change) {
+        if (change.getFullDocumentBeforeChange() != null) {
+            userRepository.evict(id, toUser(change.getFullDocumentBeforeChange()));
+        }
+        userRepository.evict(id, change.getFullDocument() != null ? toUser(change.getFullDocument()) : null);
+    }
+
+    private User toUser(Document document) {
+        return mongoTemplate.getConverter().read(UserDocument.class, document).toDomainUser();
+    }
+
+    private void evictAll() {
+        taskRepository.evictAll();
+        userRepository.evictAll();
+        countCache.evict(null);
+    }
+
+    /**
+     * Returns the id of the changed document, or null if it is not a UUID as this application writes them.
+     */
+    private static UUID documentId(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null || !id.isString()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id.asString().getValue());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
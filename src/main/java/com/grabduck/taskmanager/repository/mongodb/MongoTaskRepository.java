@@ -1,52 +1,36 @@
 package com.grabduck.taskmanager.repository.mongodb;
 
+import com.grabduck.taskmanager.domain.CountMode;
 import com.grabduck.taskmanager.domain.Task;
-import com.grabduck.taskmanager.domain.TaskPriority;
-import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+import com.grabduck.taskmanager.domain.TaskPatch;
+import com.grabduck.taskmanager.domain.TaskView;
 import com.grabduck.taskmanager.domain.Page;
 import com.grabduck.taskmanager.domain.SortOption;
-import com.grabduck.taskmanager.domain.SortDirection;
 import com.grabduck.taskmanager.repository.TaskRepository;
-import org.springframework.context.annotation.Primary;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-@Primary
-public interface MongoTaskRepository extends MongoRepository<TaskDocument, String>, TaskRepository {
+public interface MongoTaskRepository extends MongoRepository<TaskDocument, String>, MongoTaskRepositoryCustom, TaskRepository {
     
-    org.springframework.data.domain.Page<TaskDocument> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndStatusAndPriorityAndTagsContaining(
-            String name,
-            String description,
-            TaskStatus status,
-            TaskPriority priority,
-            String tag,
-            org.springframework.data.domain.Pageable pageable
-    );
-
-    org.springframework.data.domain.Page<TaskDocument> findByOwnerIdAndNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndStatusAndPriorityAndTagsContaining(
-            String ownerId,
-            String name,
-            String description,
-            TaskStatus status,
-            TaskPriority priority,
-            String tag,
-            org.springframework.data.domain.Pageable pageable
-    );
-
     Optional<TaskDocument> findByIdAndOwnerId(String id, String ownerId);
 
-    void deleteByIdAndOwnerId(String id, String ownerId);
-
     @Override
     default Task save(Task task) {
         TaskDocument document = new TaskDocument(task);
-        return save(document).toDomainTask();
+        Task saved = save(document).toDomainTask();
+        evictTaskCounts(saved.ownerId() != null ? saved.ownerId().toString() : null);
+        return saved;
     }
 
     @Override
@@ -59,64 +43,109 @@ public interface MongoTaskRepository extends MongoRepository<TaskDocument, Strin
     }
 
     @Override
-    default void deleteById(UUID id, UUID ownerId) {
-        if (ownerId == null) {
-            deleteById(id.toString());
-        } else {
-            deleteByIdAndOwnerId(id.toString(), ownerId.toString());
+    default Optional<Task> update(Task task) {
+        Optional<Task> updated = updateTaskDocument(new TaskDocument(task), task.version())
+                .map(TaskDocument::toDomainTask);
+        if (updated.isPresent()) {
+            evictTaskCounts(task.ownerId().toString());
+        }
+        return updated;
+    }
+
+    @Override
+    default Optional<Task> patch(UUID id, UUID ownerId, TaskPatch patch) {
+        Optional<Task> patched = patchTaskDocument(id.toString(), ownerId.toString(), patch)
+                .map(TaskDocument::toDomainTask);
+        if (patched.isPresent()) {
+            evictTaskCounts(ownerId.toString());
         }
+        return patched;
+    }
+
+    @Override
+    default List<TaskOperationResult> applyBatch(UUID ownerId, List<TaskOperation> operations) {
+        List<TaskOperationResult> results = applyTaskBatch(ownerId.toString(), operations);
+        evictTaskCounts(ownerId.toString());
+        return results;
+    }
+
+    @Override
+    default long updateTasks(UUID ownerId, TaskFilter filter, TaskPatch patch) {
+        long updated = updateTaskDocuments(ownerId.toString(), filter, patch);
+        evictTaskCounts(ownerId.toString());
+        return updated;
+    }
+
+    @Override
+    default long deleteTasks(UUID ownerId, TaskFilter filter) {
+        long deleted = deleteTaskDocuments(ownerId.toString(), filter);
+        evictTaskCounts(ownerId.toString());
+        return deleted;
+    }
+
+    @Override
+    default long deleteById(UUID id, UUID ownerId) {
+        long deleted = deleteTaskDocument(id.toString(), ownerId != null ? ownerId.toString() : null);
+        if (deleted > 0) {
+            evictTaskCounts(ownerId != null ? ownerId.toString() : null);
+        }
+        return deleted;
     }
 
     @Override
     default Page<Task> findTasks(
             UUID ownerId,
-            String search,
-            TaskStatus status,
-            TaskPriority priority,
-            String tag,
+            TaskFilter filter,
             int page,
             int size,
-            SortOption sortOption
+            SortOption sortOption,
+            CountMode countMode,
+            TaskView view
     ) {
-        Sort sort = createSort(sortOption);
-        PageRequest pageRequest = PageRequest.of(page, size, sort);
+        PageRequest pageRequest = PageRequest.of(page, size, TaskQueryPlanner.sort(sortOption));
+        return toDomainPage(findTaskDocuments(
+                ownerId != null ? ownerId.toString() : null,
+                filter,
+                pageRequest,
+                countMode,
+                view
+        ));
+    }
 
-        org.springframework.data.domain.Page<TaskDocument> result;
-        if (ownerId == null) {
-            result = findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndStatusAndPriorityAndTagsContaining(
-                    search != null ? search : "",
-                    search != null ? search : "",
-                    status,
-                    priority,
-                    tag,
-                    pageRequest
-            );
-        } else {
-            result = findByOwnerIdAndNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndStatusAndPriorityAndTagsContaining(
-                    ownerId.toString(),
-                    search != null ? search : "",
-                    search != null ? search : "",
-                    status,
-                    priority,
-                    tag,
-                    pageRequest
-            );
-        }
+    @Override
+    default Page<Task> findTasksAfter(
+            UUID ownerId,
+            TaskFilter filter,
+            TaskCursor cursor,
+            int size,
+            CountMode countMode,
+            TaskView view
+    ) {
+        return toDomainPage(findTaskDocumentsAfter(
+                ownerId != null ? ownerId.toString() : null,
+                filter,
+                cursor,
+                size,
+                countMode,
+                view
+        ));
+    }
 
+    @Override
+    default Stream<Task> streamTasks(UUID ownerId, TaskFilter filter) {
+        return streamTaskDocuments(ownerId != null ? ownerId.toString() : null, filter)
+                .map(TaskDocument::toDomainTask);
+    }
+
+    private static Page<Task> toDomainPage(Page<TaskDocument> documents) {
         return new Page<>(
-                result.getContent().stream()
+                documents.elements().stream()
                         .map(TaskDocument::toDomainTask)
                         .toList(),
-                result.getTotalElements(),
-                result.getTotalPages(),
-                result.getSize(),
-                result.getNumber()
+                documents.totalElements(),
+                documents.totalPages(),
+                documents.pageSize(),
+                documents.pageNumber()
         );
     }
-
-    private static Sort createSort(SortOption sortOption) {
-        Sort.Direction direction = sortOption.direction() == SortDirection.ASC ? 
-            Sort.Direction.ASC : Sort.Direction.DESC;
-        return Sort.by(direction, sortOption.field().getFieldName());
-    }
 }
@@ -0,0 +1,130 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.domain.CountMode;
+import com.grabduck.taskmanager.domain.Page;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+import com.grabduck.taskmanager.domain.TaskPatch;
+import com.grabduck.taskmanager.domain.TaskView;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Task queries that cannot be expressed as derived queries.
+ * Implemented on top of {@link org.springframework.data.mongodb.core.MongoTemplate}
+ * by {@link MongoTaskRepositoryCustomImpl}.
+ */
+public interface MongoTaskRepositoryCustom {
+
+    /**
+     * Finds tasks matching the filter. Only the filters that are present are sent.
+     * Search terms of at least three characters are first narrowed through the trigram
+     * index on {@code search_grams}; only the remaining candidates are matched by regex.
+     * Several tags are matched with {@code $all} or {@code $in} depending on the tag match mode.
+     * The total is determined as requested by the count mode, see {@link #countTaskDocuments}.
+     * Only the fields of the view are loaded.
+     */
+    Page<TaskDocument> findTaskDocuments(
+            String ownerId,
+            TaskFilter filter,
+            Pageable pageable,
+            CountMode countMode,
+            TaskView view
+    );
+
+    /**
+     * Finds at most {@code size} tasks matching the filter that sort after the cursor,
+     * using a range predicate on the sort field and id instead of a skip.
+     * The total, if requested, counts every task matching the filter.
+     */
+    Page<TaskDocument> findTaskDocumentsAfter(
+            String ownerId,
+            TaskFilter filter,
+            TaskCursor cursor,
+            int size,
+            CountMode countMode,
+            TaskView view
+    );
+
+    /**
+     * Streams every task matching the filter from a single cursor, fetching the documents in
+     * batches as the stream is consumed. The stream must be closed to release the cursor.
+     */
+    Stream<TaskDocument> streamTaskDocuments(String ownerId, TaskFilter filter);
+
+    /**
+     * Counts the tasks matching the filter. Exact counts are cached per owner and filter until
+     * the next write for that owner. An estimate is served from that cache, or otherwise counts
+     * at most a fixed number of tasks; a capped estimate is a lower bound.
+     *
+     * @return the count, or null for {@link CountMode#NONE}
+     */
+    Long countTaskDocuments(String ownerId, TaskFilter filter, CountMode countMode);
+
+    /**
+     * Replaces the editable fields of the task with the document's id and owner and increments
+     * its version, in a single findAndModify. With an expected version, only a task still at that
+     * version is updated. The creation time is kept.
+     *
+     * @return the updated document, or empty if no task matched
+     */
+    Optional<TaskDocument> updateTaskDocument(TaskDocument document, Long expectedVersion);
+
+    /**
+     * Applies the patch to the task with the id and owner and increments its version, in a
+     * single findAndModify that only touches the patched fields: {@code $set} for status,
+     * priority and due date, {@code $addToSet} and {@code $pull} for tags. A patch that both adds
+     * and removes tags updates the tags with a pipeline instead, since both operators cannot
+     * target the same field in one update. With a version in the patch, only a task still at
+     * that version is updated.
+     *
+     * @return the updated document, or empty if no task matched
+     */
+    Optional<TaskDocument> patchTaskDocument(String id, String ownerId, TaskPatch patch);
+
+    /**
+     * Applies the patch to every task of the owner matching the filter with a single updateMany,
+     * built like {@link #patchTaskDocument}. The version of the patch is not used.
+     *
+     * @return the number of updated tasks
+     */
+    long updateTaskDocuments(String ownerId, TaskFilter filter, TaskPatch patch);
+
+    /**
+     * Deletes every task of the owner matching the filter with a single deleteMany.
+     *
+     * @return the number of deleted tasks
+     */
+    long deleteTaskDocuments(String ownerId, TaskFilter filter);
+
+    /**
+     * Applies a batch of task operations for one owner with a single unordered bulk write.
+     * The tasks referenced by updates, patches and deletes are read first with one query, so
+     * that missing tasks and stale versions are reported without writing; every update is then
+     * guarded by the version that was read. Only if the bulk write matched fewer tasks than
+     * expected are the updated tasks read again to find the ones that lost a concurrent write.
+     *
+     * @return the result of every operation, in order
+     */
+    List<TaskOperationResult> applyTaskBatch(String ownerId, List<TaskOperation> operations);
+
+    /**
+     * Deletes the task with the id, if it belongs to the owner, in a single deleteOne.
+     *
+     * @param ownerId the owner, or null to delete regardless of owner
+     * @return the number of deleted tasks
+     */
+    long deleteTaskDocument(String id, String ownerId);
+
+    /**
+     * Drops the cached counts of the owner; called after every write.
+     *
+     * @param ownerId the owner whose tasks changed, or null if unknown
+     */
+    void evictTaskCounts(String ownerId);
+}
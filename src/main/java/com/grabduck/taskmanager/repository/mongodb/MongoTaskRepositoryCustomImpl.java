@@ -0,0 +1,434 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.domain.CountMode;
+import com.grabduck.taskmanager.domain.Page;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+import com.grabduck.taskmanager.domain.TaskPatch;
+import com.grabduck.taskmanager.domain.TaskView;
+import com.grabduck.taskmanager.repository.mongodb.migration.MigrationRunner;
+import com.grabduck.taskmanager.repository.mongodb.migration.TaskSearchGramsMigration;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class MongoTaskRepositoryCustomImpl implements MongoTaskRepositoryCustom {
+
+    /**
+     * Upper bound for estimated counts; an estimate stops counting after this many tasks.
+     */
+    static final int ESTIMATE_LIMIT = 1_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final TaskCountCache countCache;
+    private final MigrationRunner migrationRunner;
+
+    @Override
+    public Page<TaskDocument> findTaskDocuments(
+            String ownerId,
+            TaskFilter filter,
+            Pageable pageable,
+            CountMode countMode,
+            TaskView view
+    ) {
+        TaskCountCache.OwnerCounts counts = countCache.counts(ownerId);
+        List<TaskDocument> content = mongoTemplate.find(TaskQueryPlanner.page(ownerId, filter, searchGrams(filter), pageable, view), TaskDocument.class);
+
+        Long total;
+        if (countMode != CountMode.NONE && isLastPage(content, pageable)) {
+            // A partial page that is not past the end tells the exact total without counting
+            total = pageable.getOffset() + content.size();
+            counts.put(filter, total);
+        } else {
+            total = countTaskDocuments(ownerId, filter, countMode);
+        }
+        return Page.of(content, total, pageable.getPageSize(), pageable.getPageNumber());
+    }
+
+    @Override
+    public Page<TaskDocument> findTaskDocumentsAfter(
+            String ownerId,
+            TaskFilter filter,
+            TaskCursor cursor,
+            int size,
+            CountMode countMode,
+            TaskView view
+    ) {
+        List<TaskDocument> content = mongoTemplate.find(TaskQueryPlanner.after(ownerId, filter, searchGrams(filter), cursor, size, view), TaskDocument.class);
+        return Page.of(content, countTaskDocuments(ownerId, filter, countMode), size, 0);
+    }
+
+    @Override
+    public Stream<TaskDocument> streamTaskDocuments(String ownerId, TaskFilter filter) {
+        return mongoTemplate.stream(TaskQueryPlanner.export(ownerId, filter, searchGrams(filter)), TaskDocument.class);
+    }
+
+    @Override
+    public Long countTaskDocuments(String ownerId, TaskFilter filter, CountMode countMode) {
+        return switch (countMode) {
+            case NONE -> null;
+            case EXACT -> countCache.get(ownerId, filter, () -> count(ownerId, filter, 0));
+            case ESTIMATE -> {
+                TaskCountCache.OwnerCounts counts = countCache.counts(ownerId);
+                yield counts.peek(filter).orElseGet(() -> {
+                    long capped = count(ownerId, filter, ESTIMATE_LIMIT);
+                    if (capped < ESTIMATE_LIMIT) {
+                        counts.put(filter, capped);
+                    }
+                    return capped;
+                });
+            }
+        };
+    }
+
+    @Override
+    public Optional<TaskDocument> updateTaskDocument(TaskDocument document, Long expectedVersion) {
+        Criteria criteria = Criteria.where("id").is(document.getId()).and("ownerId").is(document.getOwnerId());
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        Update update = replaceFields(document);
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                new Query(criteria),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                TaskDocument.class
+        ));
+    }
+
+    @Override
+    public Optional<TaskDocument> patchTaskDocument(String id, String ownerId, TaskPatch patch) {
+        Criteria criteria = Criteria.where("id").is(id).and("ownerId").is(ownerId);
+        if (patch.version() != null) {
+            criteria.and("version").is(patch.version());
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                new Query(criteria),
+                patchDefinition(patch),
+                FindAndModifyOptions.options().returnNew(true),
+                TaskDocument.class
+        ));
+    }
+
+    @Override
+    public long updateTaskDocuments(String ownerId, TaskFilter filter, TaskPatch patch) {
+        return mongoTemplate.updateMulti(TaskQueryPlanner.count(ownerId, filter, searchGrams(filter)), patchDefinition(patch), TaskDocument.class)
+                .getModifiedCount();
+    }
+
+    @Override
+    public long deleteTaskDocuments(String ownerId, TaskFilter filter) {
+        return mongoTemplate.remove(TaskQueryPlanner.count(ownerId, filter, searchGrams(filter)), TaskDocument.class).getDeletedCount();
+    }
+
+    private UpdateDefinition patchDefinition(TaskPatch patch) {
+        return !patch.addTags().isEmpty() && !patch.removeTags().isEmpty()
+                ? patchPipeline(patch)
+                : patchUpdate(patch);
+    }
+
+    private static Update patchUpdate(TaskPatch patch) {
+        Update update = new Update();
+        if (patch.status() != null) {
+            update.set("status", patch.status());
+        }
+        if (patch.priority() != null) {
+            update.set("priority", patch.priority());
+        }
+        if (patch.dueDate() != null) {
+            update.set("dueDate", patch.dueDate());
+        }
+        if (!patch.addTags().isEmpty()) {
+            update.addToSet("tags").each(patch.addTags().toArray());
+        }
+        if (!patch.removeTags().isEmpty()) {
+            update.pullAll("tags", patch.removeTags().toArray());
+        }
+        return update.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+    }
+
+    /**
+     * Same as {@link #patchUpdate} as a single {@code $set} stage, with the tags computed as
+     * (tags - removed) + added. Pipeline stages are not mapped, so field names and values are
+     * written as stored.
+     */
+    private AggregationUpdate patchPipeline(TaskPatch patch) {
+        Document set = new Document();
+        if (patch.status() != null) {
+            set.append("status", patch.status().name());
+        }
+        if (patch.priority() != null) {
+            set.append("priority", patch.priority().name());
+        }
+        if (patch.dueDate() != null) {
+            set.append("due_date", mongoTemplate.getConverter().convertToMongoType(patch.dueDate()));
+        }
+        Document currentTags = new Document("$ifNull", List.of("$tags", List.of()));
+        Document remaining = new Document("$setDifference",
+                List.of(currentTags, new Document("$literal", List.copyOf(patch.removeTags()))));
+        set.append("tags", new Document("$setUnion",
+                List.of(remaining, new Document("$literal", List.copyOf(patch.addTags())))));
+        set.append("updated_at", mongoTemplate.getConverter().convertToMongoType(LocalDateTime.now()));
+        set.append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)));
+
+        AggregationOperation stage = context -> new Document("$set", set);
+        return AggregationUpdate.from(List.of(stage));
+    }
+
+    @Override
+    public List<TaskOperationResult> applyTaskBatch(String ownerId, List<TaskOperation> operations) {
+        Map<String, TaskDocument> current = findCurrent(ownerId, operations);
+
+        // Resolve every operation against the current tasks; the ones left to write are
+        // guarded by the version that was read, so a concurrent change makes them miss
+        TaskOperationResult[] results = new TaskOperationResult[operations.size()];
+        List<Integer> written = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TaskDocument.class);
+        for (int index = 0; index < operations.size(); index++) {
+            TaskOperation operation = operations.get(index);
+            UUID id = operation.taskId();
+            if (operation.type() == TaskOperation.Type.CREATE) {
+                TaskDocument document = new TaskDocument(operation.task());
+                document.setVersion(0L);
+                bulk.insert(document);
+                results[index] = TaskOperationResult.created(document.toDomainTask());
+                written.add(index);
+                continue;
+            }
+
+            TaskDocument stored = current.get(id.toString());
+            long version = stored != null && stored.getVersion() != null ? stored.getVersion() : 0L;
+            if (stored == null) {
+                results[index] = TaskOperationResult.notFound(id);
+                continue;
+            }
+            if (operation.expectedVersion() != null && operation.expectedVersion() != version) {
+                results[index] = TaskOperationResult.conflict(id, operation.expectedVersion());
+                continue;
+            }
+            Query guard = new Query(Criteria.where("id").is(stored.getId())
+                    .and("ownerId").is(ownerId)
+                    .and("version").is(stored.getVersion()));
+            switch (operation.type()) {
+                case UPDATE -> {
+                    Task updated = operation.task().withVersion(version + 1);
+                    bulk.updateOne(guard, replaceFields(new TaskDocument(updated)));
+                    results[index] = TaskOperationResult.updated(updated);
+                }
+                case PATCH -> {
+                    Task previous = stored.toDomainTask();
+                    Task updated = operation.patch().applyTo(previous).withVersion(version + 1);
+                    bulk.updateOne(guard, patchFields(operation.patch(), previous, updated));
+                    results[index] = TaskOperationResult.updated(updated);
+                }
+                default -> {
+                    // A delete without an expected version removes the task at whatever version it is
+                    bulk.remove(operation.expectedVersion() != null
+                            ? guard
+                            : new Query(Criteria.where("id").is(stored.getId()).and("ownerId").is(ownerId)));
+                    results[index] = TaskOperationResult.deleted(id);
+                }
+            }
+            written.add(index);
+        }
+        if (written.isEmpty()) {
+            return List.of(results);
+        }
+
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                int index = written.get(error.getIndex());
+                results[index] = TaskOperationResult.failed(operations.get(index).taskId(), error.getMessage());
+            }
+            result = e.getResult();
+        }
+        verifyUpdates(ownerId, results, result);
+        verifyDeletes(ownerId, operations, results, result);
+        return List.of(results);
+    }
+
+    private Map<String, TaskDocument> findCurrent(String ownerId, List<TaskOperation> operations) {
+        List<String> ids = operations.stream()
+                .filter(operation -> operation.type() != TaskOperation.Type.CREATE)
+                .map(operation -> operation.taskId().toString())
+                .toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return mongoTemplate.find(new Query(Criteria.where("id").in(ids).and("ownerId").is(ownerId)), TaskDocument.class)
+                .stream()
+                .collect(Collectors.toMap(TaskDocument::getId, Function.identity()));
+    }
+
+    /**
+     * Finds the updates that lost against a concurrent write, if the bulk write matched fewer
+     * tasks than were updated. Those tasks are read once more: a task that is gone was not found,
+     * a task at another version than the one written was a conflict.
+     */
+    private void verifyUpdates(String ownerId, TaskOperationResult[] results, BulkWriteResult result) {
+        List<TaskOperationResult> updates = Arrays.stream(results)
+                .filter(operation -> operation.status() == TaskOperationResult.Status.UPDATED)
+                .toList();
+        if (result.getMatchedCount() >= updates.size()) {
+            return;
+        }
+        Map<String, TaskDocument> stored = mongoTemplate.find(new Query(Criteria.where("id")
+                                .in(updates.stream().map(update -> update.taskId().toString()).toList())
+                                .and("ownerId").is(ownerId)),
+                        TaskDocument.class)
+                .stream()
+                .collect(Collectors.toMap(TaskDocument::getId, Function.identity()));
+        for (int index = 0; index < results.length; index++) {
+            TaskOperationResult update = results[index];
+            if (update.status() != TaskOperationResult.Status.UPDATED) {
+                continue;
+            }
+            TaskDocument document = stored.get(update.taskId().toString());
+            if (document == null) {
+                results[index] = TaskOperationResult.notFound(update.taskId());
+            } else if (!update.task().version().equals(document.getVersion())) {
+                results[index] = TaskOperationResult.conflict(update.taskId(), update.task().version() - 1);
+            }
+        }
+    }
+
+    /**
+     * Finds the deletes that lost against a concurrent write, if the bulk write deleted fewer
+     * tasks than were deleted. Those tasks are read once more: a task that is still there was
+     * changed after it was read, which is a conflict. Tasks that are gone were deleted by the
+     * batch or by someone else, which the bulk result cannot tell apart; they are only reported
+     * as not found if none of them can have been deleted by the batch.
+     */
+    private void verifyDeletes(
+            String ownerId,
+            List<TaskOperation> operations,
+            TaskOperationResult[] results,
+            BulkWriteResult result
+    ) {
+        List<Integer> deletes = new ArrayList<>();
+        for (int index = 0; index < results.length; index++) {
+            if (results[index].status() == TaskOperationResult.Status.DELETED) {
+                deletes.add(index);
+            }
+        }
+        long missed = deletes.size() - result.getDeletedCount();
+        if (missed <= 0) {
+            return;
+        }
+        Map<String, TaskDocument> stored = mongoTemplate.find(new Query(Criteria.where("id")
+                                .in(deletes.stream().map(index -> results[index].taskId().toString()).toList())
+                                .and("ownerId").is(ownerId)),
+                        TaskDocument.class)
+                .stream()
+                .collect(Collectors.toMap(TaskDocument::getId, Function.identity()));
+        List<Integer> gone = new ArrayList<>();
+        for (int index : deletes) {
+            UUID id = results[index].taskId();
+            if (stored.containsKey(id.toString())) {
+                results[index] = TaskOperationResult.conflict(id, operations.get(index).expectedVersion());
+                missed--;
+            } else {
+                gone.add(index);
+            }
+        }
+        if (missed > 0 && missed >= gone.size()) {
+            gone.forEach(index -> results[index] = TaskOperationResult.notFound(results[index].taskId()));
+        }
+    }
+
+    private static Update replaceFields(TaskDocument document) {
+        return new Update()
+                .set("name", document.getName())
+                .set("description", document.getDescription())
+                .set("dueDate", document.getDueDate())
+                .set("status", document.getStatus())
+                .set("priority", document.getPriority())
+                .set("tags", document.getTags())
+                .set("searchGrams", document.getSearchGrams())
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+    }
+
+    /**
+     * Sets only the patched fields of a task whose current state is known; the tags are set as a whole.
+     */
+    private static Update patchFields(TaskPatch patch, Task previous, Task updated) {
+        Update update = new Update();
+        if (patch.status() != null) {
+            update.set("status", patch.status());
+        }
+        if (patch.priority() != null) {
+            update.set("priority", patch.priority());
+        }
+        if (patch.dueDate() != null) {
+            update.set("dueDate", patch.dueDate());
+        }
+        if (!previous.tags().equals(updated.tags())) {
+            update.set("tags", updated.tags());
+        }
+        return update.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+    }
+
+    @Override
+    public long deleteTaskDocument(String id, String ownerId) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (ownerId != null) {
+            criteria.and("ownerId").is(ownerId);
+        }
+        return mongoTemplate.remove(new Query(criteria), TaskDocument.class).getDeletedCount();
+    }
+
+    @Override
+    public void evictTaskCounts(String ownerId) {
+        countCache.evict(ownerId);
+    }
+
+    private long count(String ownerId, TaskFilter filter, int limit) {
+        Query query = TaskQueryPlanner.count(ownerId, filter, searchGrams(filter));
+        if (limit > 0) {
+            query.limit(limit);
+        }
+        return mongoTemplate.count(query, TaskDocument.class);
+    }
+
+    /**
+     * Whether a search may be narrowed by trigrams, which is only the case once every task has them.
+     */
+    private boolean searchGrams(TaskFilter filter) {
+        return filter.search() != null && migrationRunner.isApplied(TaskSearchGramsMigration.MIGRATION_ID);
+    }
+
+    private static boolean isLastPage(List<TaskDocument> content, Pageable pageable) {
+        return content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty());
+    }
+}
@@ -1,20 +1,37 @@
 package com.grabduck.taskmanager.repository.mongodb;
 
+import com.grabduck.taskmanager.config.SeedProperties;
 import com.grabduck.taskmanager.domain.Task;
 import com.grabduck.taskmanager.repository.TaskDataProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Seeds an empty tasks collection from {@link TaskDataProvider}. Tasks are streamed from the
+ * source in batches and each batch is written with a single insertMany. Up to
+ * {@code seed.parallelism} batches are written concurrently; the reader waits when that many
+ * are in flight, so memory stays bounded by the batches in flight whatever the source size.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class MongoTaskSeeder {
 
+    private final MongoTemplate mongoTemplate;
     private final MongoTaskRepository taskRepository;
     private final TaskDataProvider taskDataProvider;
+    private final SeedProperties seedProperties;
 
     @EventListener(ApplicationReadyEvent.class)
     public void seed() {
@@ -24,16 +41,50 @@ public class MongoTaskSeeder {
         }
 
         log.info("Starting database seeding...");
-        var sampleTasks = taskDataProvider.getTasks();
-        
-        for (Task task : sampleTasks) {
-            taskRepository.save(task);
+        long start = System.currentTimeMillis();
+        int parallelism = Math.max(1, seedProperties.getParallelism());
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(parallelism);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        try {
+            long seeded = taskDataProvider.forEachBatch(Math.max(1, seedProperties.getBatchSize()), batch -> {
+                inFlight.acquireUninterruptibly();
+                if (failure.get() != null) {
+                    inFlight.release();
+                    throw failure.get();
+                }
+                executor.execute(() -> {
+                    try {
+                        insert(batch);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            });
+            // Wait for the batches still in flight
+            inFlight.acquireUninterruptibly(parallelism);
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            log.info("Successfully seeded {} tasks into MongoDB in {} ms", seeded, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Failed to seed tasks", e);
+        } finally {
+            executor.shutdown();
+            taskRepository.evictTaskCounts(null);
         }
-        
-        log.info("Successfully seeded {} tasks into MongoDB", sampleTasks.size());
+    }
+
+    private void insert(List<Task> batch) {
+        List<TaskDocument> documents = batch.stream()
+                .map(TaskDocument::new)
+                .toList();
+        mongoTemplate.insert(documents, TaskDocument.class);
     }
 
     private boolean isSeeded() {
-        return taskRepository.count() > 0;
+        return mongoTemplate.exists(new Query(), TaskDocument.class);
     }
 }
@@ -2,7 +2,6 @@ package com.grabduck.taskmanager.repository.mongodb;
 
 import com.grabduck.taskmanager.domain.User;
 import com.grabduck.taskmanager.repository.UserRepository;
-import org.springframework.context.annotation.Primary;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -13,7 +12,6 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @Repository
-@Primary
 public interface MongoUserRepository extends MongoRepository<UserDocument, String>, UserRepository {
     
     @Query("{ 'username' : ?0 }")
@@ -22,6 +20,8 @@ public interface MongoUserRepository extends MongoRepository<UserDocument, Strin
     @Query("{ 'email' : ?0 }")
     Optional<UserDocument> findUserDocumentByEmail(String email);
 
+    Optional<UserDocument> findFirstByOrderByCreatedAtAsc();
+
     @Override
     default User save(User user) {
         UserDocument document = new UserDocument(user);
@@ -57,4 +57,10 @@ public interface MongoUserRepository extends MongoRepository<UserDocument, Strin
                 .map(doc -> doc.toDomainUser())
                 .collect(Collectors.toList());
     }
+
+    @Override
+    default Optional<User> findFirstUser() {
+        return findFirstByOrderByCreatedAtAsc()
+                .map(UserDocument::toDomainUser);
+    }
 }
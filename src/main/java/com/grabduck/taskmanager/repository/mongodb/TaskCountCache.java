@@ -0,0 +1,122 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.domain.TaskFilter;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Exact task counts per owner and filter, so that paging through the same list does not
+ * run {@code countDocuments} for every page. Writes evict all counts of the written owner
+ * together with the counts across all owners.
+ * A count that was computed while a write was in flight is stored in the owner's map as it
+ * was before the eviction, which the eviction has already detached, so it is never served.
+ * Counts that are computed outside of {@link #get} are stored through the {@link OwnerCounts}
+ * taken before they were computed, for the same reason.
+ */
+@Component
+public class TaskCountCache {
+    static final int MAX_FILTERS_PER_OWNER = 64;
+    static final int MAX_OWNERS = 10_000;
+
+    private static final String ALL_OWNERS = "*";
+
+    private final ConcurrentMap<String, Map<TaskFilter, Long>> counts = new ConcurrentHashMap<>();
+
+    /**
+     * The counts of one owner as they were when taken. Once the owner is evicted, counts stored
+     * here are no longer served.
+     */
+    public static final class OwnerCounts {
+        private final Map<TaskFilter, Long> counts;
+
+        private OwnerCounts(Map<TaskFilter, Long> counts) {
+            this.counts = counts;
+        }
+
+        public Optional<Long> peek(TaskFilter filter) {
+            return Optional.ofNullable(counts.get(filter));
+        }
+
+        /**
+         * Caches a count that is known to be exact and was computed after these counts were taken.
+         */
+        public void put(TaskFilter filter, long count) {
+            TaskCountCache.put(counts, filter, count);
+        }
+    }
+
+    /**
+     * Returns the current counts of the owner; take them before computing a count to store.
+     *
+     * @param ownerId the owner, or null for counts across all owners
+     */
+    public OwnerCounts counts(String ownerId) {
+        return new OwnerCounts(ownerCounts(ownerId));
+    }
+
+    /**
+     * Returns the cached count for the owner and filter, computing and caching it if absent.
+     *
+     * @param ownerId the owner, or null for counts across all owners
+     */
+    public long get(String ownerId, TaskFilter filter, LongSupplier count) {
+        Map<TaskFilter, Long> ownerCounts = ownerCounts(ownerId);
+        Long cached = ownerCounts.get(filter);
+        if (cached != null) {
+            return cached;
+        }
+        long computed = count.getAsLong();
+        put(ownerCounts, filter, computed);
+        return computed;
+    }
+
+    /**
+     * Returns the cached count for the owner and filter without computing it.
+     */
+    public Optional<Long> peek(String ownerId, TaskFilter filter) {
+        Map<TaskFilter, Long> ownerCounts = counts.get(key(ownerId));
+        return ownerCounts != null ? Optional.ofNullable(ownerCounts.get(filter)) : Optional.empty();
+    }
+
+    /**
+     * Drops the counts of the owner and the counts across all owners.
+     * Must be called after the write is visible to queries.
+     *
+     * @param ownerId the owner whose tasks changed, or null if unknown
+     */
+    public void evict(String ownerId) {
+        if (ownerId == null) {
+            counts.clear();
+            return;
+        }
+        counts.remove(ownerId);
+        counts.remove(ALL_OWNERS);
+    }
+
+    private Map<TaskFilter, Long> ownerCounts(String ownerId) {
+        Map<TaskFilter, Long> ownerCounts = counts.get(key(ownerId));
+        if (ownerCounts != null) {
+            return ownerCounts;
+        }
+        if (counts.size() >= MAX_OWNERS) {
+            counts.clear();
+        }
+        return counts.computeIfAbsent(key(ownerId), owner -> new ConcurrentHashMap<>());
+    }
+
+    private static void put(Map<TaskFilter, Long> ownerCounts, TaskFilter filter, long count) {
+        if (ownerCounts.size() >= MAX_FILTERS_PER_OWNER) {
+            ownerCounts.clear();
+        }
+        ownerCounts.put(filter, count);
+    }
+
+    private static String key(String ownerId) {
+        return ownerId != null ? ownerId : ALL_OWNERS;
+    }
+}
@@ -3,10 +3,11 @@ package com.grabduck.taskmanager.repository.mongodb;
 import com.grabduck.taskmanager.domain.Task;
 import com.grabduck.taskmanager.domain.TaskPriority;
 import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.util.Trigrams;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -14,6 +15,10 @@ import java.time.LocalDateTime;
 import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Task as stored in the tasks collection. Its indexes are managed by {@link TaskIndexes}
+ * and built in the background by {@link TaskIndexManager}.
+ */
 @Document(collection = "tasks")
 @Data
 @NoArgsConstructor
@@ -22,38 +27,45 @@ public class TaskDocument {
     private String id;
 
     @Field("name")
-    @Indexed
     private String name;
 
     @Field("description")
     private String description;
 
     @Field("due_date")
-    @Indexed
     private LocalDateTime dueDate;
 
     @Field("status")
-    @Indexed
     private TaskStatus status;
 
     @Field("priority")
-    @Indexed
     private TaskPriority priority;
 
     @Field("tags")
-    @Indexed
     private Set<String> tags;
 
     @Field("owner_id")
-    @Indexed  // Add index for efficient querying by owner
     private String ownerId;
 
+    /**
+     * Lower-cased trigrams of name and description, used to narrow substring searches
+     */
+    @Field("search_grams")
+    private Set<String> searchGrams;
+
     @Field("created_at")
     private LocalDateTime createdAt;
 
     @Field("updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Incremented on every update; tasks written before versioning have none until their next update
+     */
+    @Version
+    @Field("version")
+    private Long version;
+
     public TaskDocument(Task task) {
         this.id = uuidToString(task.id());
         this.name = task.name();
@@ -63,8 +75,10 @@ public class TaskDocument {
         this.priority = task.priority();
         this.tags = Set.copyOf(task.tags());
         this.ownerId = uuidToString(task.ownerId());
+        this.searchGrams = Trigrams.ofTask(task.name(), task.description());
         this.createdAt = LocalDateTime.now();
         this.updatedAt = this.createdAt;
+        this.version = task.version();
     }
 
     public Task toDomainTask() {
@@ -76,7 +90,8 @@ public class TaskDocument {
             status,
             priority,
             tags,
-            stringToUUID(ownerId)
+            stringToUUID(ownerId),
+            version
         );
     }
 
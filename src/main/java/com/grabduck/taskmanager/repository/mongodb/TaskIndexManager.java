@@ -0,0 +1,134 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.config.TaskIndexProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the indexes of {@link TaskIndexes} once the application is ready, on a background
+ * thread, so that startup does not wait for index builds on a large tasks collection.
+ * Queries keep working while indexes are missing, just without their help.
+ * Indexes on the tasks collection that are not part of the managed set are reported, and dropped
+ * only when {@code task-indexes.drop-unmanaged} is enabled.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskIndexManager {
+    private static final String COLLECTION = "tasks";
+    private static final String ID_INDEX = "_id_";
+
+    /**
+     * Build state of a managed index.
+     */
+    public enum State { PENDING, BUILDING, READY, FAILED }
+
+    private final MongoTemplate mongoTemplate;
+    private final TaskIndexProperties properties;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-index-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        TaskIndexes.all().keySet().forEach(name -> states.put(name, State.PENDING));
+        executor.execute(this::ensureIndexes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns how often each index of the tasks collection was used since it was created or the
+     * server restarted, together with the build state of managed indexes. Unmanaged indexes are
+     * listed too, so they can be reviewed before being dropped.
+     */
+    public List<TaskIndexUsage> usage() {
+        List<TaskIndexUsage> usage = new ArrayList<>();
+        for (Document stats : mongoTemplate.getCollection(COLLECTION)
+                .aggregate(List.of(new Document("$indexStats", new Document())))) {
+            String name = stats.getString("name");
+            Document accesses = stats.get("accesses", Document.class);
+            usage.add(new TaskIndexUsage(
+                    name,
+                    stats.get("key", Document.class),
+                    accesses.get("ops", Number.class).longValue(),
+                    accesses.getDate("since"),
+                    TaskIndexes.all().containsKey(name),
+                    states.getOrDefault(name, State.READY)
+            ));
+        }
+        return usage;
+    }
+
+    private void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(COLLECTION);
+        for (Map.Entry<String, Index> index : TaskIndexes.all().entrySet()) {
+            String name = index.getKey();
+            states.put(name, State.BUILDING);
+            try {
+                long start = System.currentTimeMillis();
+                indexOps.ensureIndex(index.getValue());
+                states.put(name, State.READY);
+                log.info("Index {} on {} ready after {} ms", name, COLLECTION, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                states.put(name, State.FAILED);
+                log.error("Failed to build index {} on {}", name, COLLECTION, e);
+            }
+        }
+        try {
+            for (IndexInfo existing : indexOps.getIndexInfo()) {
+                String name = existing.getName();
+                if (ID_INDEX.equals(name) || TaskIndexes.all().containsKey(name)) {
+                    continue;
+                }
+                if (properties.isDropUnmanaged()) {
+                    indexOps.dropIndex(name);
+                    log.info("Dropped unmanaged index {} on {}", name, COLLECTION);
+                } else {
+                    log.warn("Unmanaged index {} on {} is kept; set task-indexes.drop-unmanaged to drop it",
+                            name, COLLECTION);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to check unmanaged indexes on {}", COLLECTION, e);
+        }
+    }
+
+    /**
+     * Usage statistics of one index of the tasks collection.
+     *
+     * @param accesses number of operations that used the index since {@code since}
+     * @param managed  whether the index belongs to {@link TaskIndexes}
+     */
+    public record TaskIndexUsage(
+            String name,
+            Document key,
+            long accesses,
+            Date since,
+            boolean managed,
+            State state
+    ) {}
+}
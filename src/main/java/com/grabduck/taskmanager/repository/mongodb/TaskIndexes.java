@@ -0,0 +1,82 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.domain.SortField;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compound indexes of the tasks collection, derived from the list queries that
+ * {@link TaskQueryPlanner} builds. Every list query is scoped to an owner, may have one equality
+ * filter on status, priority or a tag, and is sorted by a {@link SortField} and then by id.
+ * For each such combination there is an index on owner, filter, sort field and id, so the
+ * filter is answered from the index and the sort comes from index order instead of memory.
+ * Searches are served by the owner and trigram index.
+ */
+public final class TaskIndexes {
+    static final String OWNER = "owner_id";
+    static final String ID = "_id";
+
+    /**
+     * Document fields that the list endpoint filters on by equality.
+     */
+    static final List<String> FILTER_FIELDS = List.of("status", "priority", "tags");
+
+    private static final Map<String, Index> INDEXES = build();
+
+    private TaskIndexes() {
+    }
+
+    /**
+     * Returns the managed indexes by name.
+     */
+    public static Map<String, Index> all() {
+        return INDEXES;
+    }
+
+    /**
+     * Returns the document field that a sort field is stored in.
+     */
+    static String documentField(SortField field) {
+        return switch (field) {
+            case DUE_DATE -> "due_date";
+            case NAME -> "name";
+            case STATUS -> "status";
+            case PRIORITY -> "priority";
+        };
+    }
+
+    private static Map<String, Index> build() {
+        Map<List<String>, String> namesByKeys = new LinkedHashMap<>();
+        List<String> filters = new ArrayList<>();
+        filters.add(null);
+        filters.addAll(FILTER_FIELDS);
+        for (String filter : filters) {
+            for (SortField field : SortField.values()) {
+                List<String> keys = new ArrayList<>();
+                keys.add(OWNER);
+                String sortField = documentField(field);
+                if (filter != null && !filter.equals(sortField)) {
+                    keys.add(filter);
+                }
+                keys.add(sortField);
+                keys.add(ID);
+                namesByKeys.putIfAbsent(keys, String.join("_", keys.subList(0, keys.size() - 1)));
+            }
+        }
+        namesByKeys.put(List.of(OWNER, "search_grams"), "owner_search_grams");
+
+        Map<String, Index> indexes = new LinkedHashMap<>();
+        namesByKeys.forEach((keys, name) -> {
+            Index index = new Index().named(name).background();
+            keys.forEach(key -> index.on(key, Sort.Direction.ASC));
+            indexes.put(name, index);
+        });
+        return Collections.unmodifiableMap(indexes);
+    }
+}
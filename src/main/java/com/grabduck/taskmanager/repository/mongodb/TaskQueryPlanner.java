@@ -0,0 +1,163 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.domain.SortDirection;
+import com.grabduck.taskmanager.domain.SortOption;
+import com.grabduck.taskmanager.domain.TagMatch;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskView;
+import com.grabduck.taskmanager.util.Trigrams;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the MongoDB queries behind the task list. Only the filters that are present become
+ * predicates, and they are emitted in index order: the owner first, then the equality filters
+ * on status, priority and tags, then the trigram narrowing of a search. Every owner-scoped
+ * filter combination therefore starts with the prefix of one of the compound indexes declared
+ * on {@link TaskDocument} and is answered by an index scan. A search is verified by a
+ * case-insensitive regex on name and description only after the indexed predicates. The trigram
+ * narrowing is left out until every task has its trigrams, since tasks written before they were
+ * introduced have none and would not match; the regex alone then decides the search.
+ * List queries project the fields of the requested {@link TaskView}; the search trigrams and
+ * audit timestamps are never loaded for a list.
+ */
+public final class TaskQueryPlanner {
+    private static final List<String> SUMMARY_FIELDS =
+            List.of("id", "name", "dueDate", "status", "priority", "tags", "ownerId", "version");
+    private static final List<String> FULL_FIELDS =
+            List.of("id", "name", "description", "dueDate", "status", "priority", "tags", "ownerId", "version");
+
+    private static final int EXPORT_BATCH_SIZE = 1_000;
+
+    private TaskQueryPlanner() {
+    }
+
+    /**
+     * Returns the query for the tasks matching the filter, without paging or sorting.
+     * Also selects the tasks of updates and deletes by filter.
+     *
+     * @param ownerId     the owner, or null for tasks of all owners
+     * @param searchGrams whether every task has its search trigrams, so that a search may be
+     *                    narrowed by them
+     */
+    public static Query count(String ownerId, TaskFilter filter, boolean searchGrams) {
+        return new Query(and(filterCriteria(ownerId, filter, searchGrams)));
+    }
+
+    /**
+     * Returns the query for one offset page of the tasks matching the filter.
+     */
+    public static Query page(String ownerId, TaskFilter filter, boolean searchGrams, Pageable pageable, TaskView view) {
+        return project(count(ownerId, filter, searchGrams).with(pageable), view);
+    }
+
+    /**
+     * Returns the query for the first {@code size} tasks matching the filter after the cursor,
+     * in the cursor's sort order.
+     */
+    public static Query after(
+            String ownerId,
+            TaskFilter filter,
+            boolean searchGrams,
+            TaskCursor cursor,
+            int size,
+            TaskView view
+    ) {
+        List<Criteria> criteria = filterCriteria(ownerId, filter, searchGrams);
+        criteria.add(afterCriteria(cursor));
+        return project(new Query(and(criteria)).with(sort(cursor.sortOption())).limit(size), view);
+    }
+
+    /**
+     * Returns the query for streaming every task matching the filter as full tasks. The query is
+     * unsorted, so the cursor follows the index without an in-memory sort, and fetches large batches.
+     */
+    public static Query export(String ownerId, TaskFilter filter, boolean searchGrams) {
+        return project(count(ownerId, filter, searchGrams), TaskView.FULL).cursorBatchSize(EXPORT_BATCH_SIZE);
+    }
+
+    /**
+     * Sorts by the requested field and then by id, so that every document has a stable position.
+     */
+    public static Sort sort(SortOption sortOption) {
+        Sort.Direction direction = sortOption.direction() == SortDirection.ASC ?
+            Sort.Direction.ASC : Sort.Direction.DESC;
+        return Sort.by(direction, sortOption.field().getFieldName(), "id");
+    }
+
+    private static Query project(Query query, TaskView view) {
+        (view == TaskView.SUMMARY ? SUMMARY_FIELDS : FULL_FIELDS).forEach(query.fields()::include);
+        return query;
+    }
+
+    private static List<Criteria> filterCriteria(String ownerId, TaskFilter filter, boolean searchGrams) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (ownerId != null) {
+            criteria.add(Criteria.where("ownerId").is(ownerId));
+        }
+        if (filter.status() != null) {
+            criteria.add(Criteria.where("status").is(filter.status()));
+        }
+        if (filter.priority() != null) {
+            criteria.add(Criteria.where("priority").is(filter.priority()));
+        }
+        if (filter.tags().size() == 1) {
+            criteria.add(Criteria.where("tags").is(filter.tags().iterator().next()));
+        } else if (filter.tags().size() > 1) {
+            criteria.add(filter.tagMatch() == TagMatch.ALL
+                    ? Criteria.where("tags").all(filter.tags())
+                    : Criteria.where("tags").in(filter.tags()));
+        }
+        if (filter.search() != null) {
+            String needle = Trigrams.normalize(filter.search());
+            if (searchGrams && Trigrams.isSearchable(needle)) {
+                criteria.add(Criteria.where("searchGrams").all(Trigrams.of(needle)));
+            }
+            Pattern pattern = Pattern.compile(Pattern.quote(filter.search()), Pattern.CASE_INSENSITIVE);
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("name").regex(pattern),
+                    Criteria.where("description").regex(pattern)
+            ));
+        }
+        return criteria;
+    }
+
+    /**
+     * Matches the documents that sort after the cursor: a later sort value, or the same value
+     * and a later id. MongoDB sorts missing values before all others, which decides where
+     * tasks without a due date fall.
+     */
+    private static Criteria afterCriteria(TaskCursor cursor) {
+        String field = cursor.sortOption().field().getFieldName();
+        boolean ascending = cursor.sortOption().direction() == SortDirection.ASC;
+        Object value = cursor.sortValue();
+        String lastId = cursor.lastId().toString();
+
+        Criteria sameValueLaterId = new Criteria().andOperator(
+                Criteria.where(field).is(value),
+                ascending ? Criteria.where("id").gt(lastId) : Criteria.where("id").lt(lastId)
+        );
+        if (value == null) {
+            return ascending
+                    ? new Criteria().orOperator(sameValueLaterId, Criteria.where(field).ne(null))
+                    : sameValueLaterId;
+        }
+        return ascending
+                ? new Criteria().orOperator(Criteria.where(field).gt(value), sameValueLaterId)
+                : new Criteria().orOperator(Criteria.where(field).lt(value), sameValueLaterId, Criteria.where(field).is(null));
+    }
+
+    private static Criteria and(List<Criteria> criteria) {
+        if (criteria.size() == 1) {
+            return criteria.get(0);
+        }
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+}
@@ -0,0 +1,48 @@
+package com.grabduck.taskmanager.repository.mongodb.migration;
+
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.List;
+
+/**
+ * A versioned change to the documents of one collection, applied by {@link MigrationRunner}.
+ * The runner reads the documents matching {@link #filter()} in {@code _id} order and in batches,
+ * and writes whatever {@link #migrate(List)} returns for each batch. A migration must be
+ * idempotent per document: after a crash the last batch of a range may be migrated again.
+ */
+public interface Migration {
+
+    /**
+     * Unique id under which progress and completion are recorded.
+     */
+    String id();
+
+    /**
+     * Position of the migration in the sequence; migrations run in ascending version order.
+     */
+    int version();
+
+    /**
+     * Name of the collection to migrate.
+     */
+    String collection();
+
+    /**
+     * Selects the documents that still need this migration.
+     */
+    Bson filter();
+
+    /**
+     * Fields to read for each document, or null for the whole document.
+     */
+    default Bson projection() {
+        return null;
+    }
+
+    /**
+     * Returns the writes that migrate one batch of documents.
+     */
+    List<WriteModel<Document>> migrate(List<Document> batch);
+}
@@ -0,0 +1,349 @@
+package com.grabduck.taskmanager.repository.mongodb.migration;
+
+import com.grabduck.taskmanager.config.MigrationProperties;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the {@link Migration}s in version order on a background thread, so that startup does
+ * not wait for them. Each migration is split into {@code _id} ranges from a sample of the
+ * documents it selects, and the ranges are migrated by parallel workers in throttled batches.
+ * The ranges and the last migrated {@code _id} of every range are checkpointed in the
+ * {@code migrations} collection after each batch, so a migration interrupted by a crash or
+ * restart resumes where it stopped. A failed migration is retried on the next start and holds
+ * back the migrations after it.
+ * <p>
+ * Several nodes may start at the same time, but only one applies a migration: a node claims it
+ * atomically in its checkpoint before planning, and renews the claim's lease while it runs.
+ * Every checkpoint write requires the claim, so a node that lost it, for example after a pause
+ * longer than the lease, stops instead of advancing another node's ranges. Nodes that do not
+ * win the claim wait until the migration is applied or the lease expires. Whether a migration has been applied can be asked through
+ * {@link #isApplied}, for code that may only rely on its changes afterwards.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MigrationRunner {
+    static final String MIGRATIONS_COLLECTION = "migrations";
+    private static final int SAMPLES_PER_WORKER = 32;
+    private static final long APPLIED_RECHECK_MS = 10_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final List<Migration> migrations;
+    private final MigrationProperties properties;
+    private final Set<String> applied = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> appliedCheckedAt = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::runAll, "migration-runner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Applies every pending migration in version order, stopping at the first failure.
+     *
+     * @return whether all migrations are applied
+     */
+    public boolean runAll() {
+        List<Migration> ordered = migrations.stream()
+                .sorted(Comparator.comparingInt(Migration::version))
+                .toList();
+        for (Migration migration : ordered) {
+            try {
+                run(migration);
+            } catch (Exception e) {
+                log.error("Migration {} failed, it and later migrations will be retried on the next start",
+                        migration.id(), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the migration has been applied, by this or any other node. A migration that
+     * is not applied yet is looked up again at most every {@value #APPLIED_RECHECK_MS} ms.
+     */
+    public boolean isApplied(String migrationId) {
+        if (applied.contains(migrationId)) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        Long checkedAt = appliedCheckedAt.get(migrationId);
+        if (checkedAt != null && now - checkedAt < APPLIED_RECHECK_MS) {
+            return false;
+        }
+        appliedCheckedAt.put(migrationId, now);
+        Document checkpoint = mongoTemplate.getDb().getCollection(MIGRATIONS_COLLECTION)
+                .find(Filters.eq("_id", migrationId))
+                .projection(Projections.include("appliedAt"))
+                .first();
+        if (checkpoint != null && checkpoint.containsKey("appliedAt")) {
+            applied.add(migrationId);
+            return true;
+        }
+        return false;
+    }
+
+    void run(Migration migration) {
+        MongoCollection<Document> checkpoints = mongoTemplate.getDb().getCollection(MIGRATIONS_COLLECTION);
+        Document checkpoint = claim(checkpoints, migration);
+        if (checkpoint == null) {
+            log.info("Migration {} already applied, skipping", migration.id());
+            applied.add(migration.id());
+            return;
+        }
+
+        long renewEvery = Math.max(1, properties.getLeaseMs() / 3);
+        ScheduledExecutorService renewal = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "migration-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewal.scheduleAtFixedRate(() -> renew(checkpoints, migration), renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+        ExecutorService executor = null;
+        try {
+            List<Document> ranges = checkpoint.getList("ranges", Document.class);
+            if (ranges == null) {
+                ranges = planRanges(migration);
+                checkpoint(checkpoints, migration, Updates.combine(
+                        Updates.set("ranges", ranges),
+                        Updates.set("startedAt", System.currentTimeMillis())
+                ));
+                log.info("Starting migration {} over {} ranges", migration.id(), ranges.size());
+            } else {
+                log.info("Resuming migration {}", migration.id());
+            }
+
+            executor = Executors.newFixedThreadPool(ranges.size());
+            List<Future<Long>> workers = new ArrayList<>();
+            for (int index = 0; index < ranges.size(); index++) {
+                Document range = ranges.get(index);
+                if (!range.getBoolean("done", false)) {
+                    int rangeIndex = index;
+                    workers.add(executor.submit(() -> migrateRange(migration, rangeIndex, range)));
+                }
+            }
+            long migrated = 0;
+            for (Future<Long> worker : workers) {
+                migrated += worker.get();
+            }
+            checkpoint(checkpoints, migration, Updates.set("appliedAt", System.currentTimeMillis()));
+            applied.add(migration.id());
+            log.info("Successfully applied migration {} to {} documents", migration.id(), migrated);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while applying migration " + migration.id(), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to apply migration " + migration.id(), e.getCause());
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            renewal.shutdownNow();
+            checkpoints.updateOne(owned(migration), Updates.combine(Updates.unset("owner"), Updates.unset("leaseUntil")));
+        }
+    }
+
+    /**
+     * Claims the migration for this node, waiting while another node holds an unexpired claim.
+     *
+     * @return the claimed checkpoint, or null if the migration is applied
+     */
+    private Document claim(MongoCollection<Document> checkpoints, Migration migration) {
+        Bson byId = Filters.eq("_id", migration.id());
+        while (true) {
+            long now = System.currentTimeMillis();
+            Bson claimable = Filters.and(
+                    byId,
+                    Filters.exists("appliedAt", false),
+                    Filters.or(
+                            Filters.exists("owner", false),
+                            Filters.eq("owner", nodeId),
+                            Filters.lt("leaseUntil", now)
+                    )
+            );
+            try {
+                // Upserting a checkpoint that exists but is not claimable fails on the _id
+                return checkpoints.findOneAndUpdate(claimable, Updates.combine(
+                        Updates.set("owner", nodeId),
+                        Updates.set("leaseUntil", now + properties.getLeaseMs())
+                ), new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+            } catch (MongoCommandException e) {
+                if (ErrorCategory.fromErrorCode(e.getErrorCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+
+            Document checkpoint = checkpoints.find(byId).first();
+            if (checkpoint != null && checkpoint.containsKey("appliedAt")) {
+                return null;
+            }
+            log.info("Migration {} is being applied by node {}, waiting",
+                    migration.id(), checkpoint != null ? checkpoint.get("owner") : null);
+            try {
+                Thread.sleep(Math.max(1, properties.getLeaseMs() / 3));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for migration " + migration.id(), e);
+            }
+        }
+    }
+
+    private void renew(MongoCollection<Document> checkpoints, Migration migration) {
+        try {
+            UpdateResult result = checkpoints.updateOne(owned(migration),
+                    Updates.set("leaseUntil", System.currentTimeMillis() + properties.getLeaseMs()));
+            if (result.getMatchedCount() == 0) {
+                log.warn("Lost the claim on migration {} to another node", migration.id());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew the claim on migration {}", migration.id(), e);
+        }
+    }
+
+    /**
+     * Writes to the checkpoint of a migration this node has claimed.
+     *
+     * @throws IllegalStateException if the claim was lost
+     */
+    private void checkpoint(MongoCollection<Document> checkpoints, Migration migration, Bson update) {
+        if (checkpoints.updateOne(owned(migration), update).getMatchedCount() == 0) {
+            throw new IllegalStateException("Lost the claim on migration " + migration.id() + " to another node");
+        }
+    }
+
+    private Bson owned(Migration migration) {
+        return Filters.and(Filters.eq("_id", migration.id()), Filters.eq("owner", nodeId));
+    }
+
+    /**
+     * Splits the documents selected by the migration into {@code _id} ranges of about equal
+     * size, using a random sample of their ids as split points.
+     */
+    private List<Document> planRanges(Migration migration) {
+        int workers = Math.max(1, properties.getWorkers());
+        List<Object> sample = new ArrayList<>();
+        if (workers > 1) {
+            mongoTemplate.getDb().getCollection(migration.collection())
+                    .aggregate(List.of(
+                            Aggregates.match(migration.filter()),
+                            Aggregates.sample(workers * SAMPLES_PER_WORKER),
+                            Aggregates.project(Projections.include("_id"))
+                    ))
+                    .forEach(document -> sample.add(document.get("_id")));
+        }
+
+        List<Object> bounds = splitPoints(sample, workers);
+        List<Document> ranges = new ArrayList<>();
+        for (int index = 0; index <= bounds.size(); index++) {
+            ranges.add(new Document("lower", index > 0 ? bounds.get(index - 1) : null)
+                    .append("upper", index < bounds.size() ? bounds.get(index) : null)
+                    .append("lastId", null)
+                    .append("migrated", 0L)
+                    .append("done", false));
+        }
+        return ranges;
+    }
+
+    /**
+     * Picks up to {@code workers - 1} distinct, ascending split points at even quantiles of the sample.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static List<Object> splitPoints(List<Object> sample, int workers) {
+        List<Object> sorted = new ArrayList<>(sample);
+        sorted.sort((left, right) -> ((Comparable) left).compareTo(right));
+        List<Object> bounds = new ArrayList<>();
+        for (int worker = 1; worker < workers && !sorted.isEmpty(); worker++) {
+            Object bound = sorted.get(worker * sorted.size() / workers);
+            if (bounds.isEmpty() || !bounds.get(bounds.size() - 1).equals(bound)) {
+                bounds.add(bound);
+            }
+        }
+        return bounds;
+    }
+
+    private long migrateRange(Migration migration, int index, Document range) throws InterruptedException {
+        MongoCollection<Document> collection = mongoTemplate.getDb().getCollection(migration.collection());
+        MongoCollection<Document> checkpoints = mongoTemplate.getDb().getCollection(MIGRATIONS_COLLECTION);
+        String prefix = "ranges." + index + ".";
+        Object lastId = range.get("lastId");
+        long migrated = 0;
+
+        while (true) {
+            List<Bson> conditions = new ArrayList<>();
+            conditions.add(migration.filter());
+            if (lastId != null) {
+                conditions.add(Filters.gt("_id", lastId));
+            } else if (range.get("lower") != null) {
+                conditions.add(Filters.gte("_id", range.get("lower")));
+            }
+            if (range.get("upper") != null) {
+                conditions.add(Filters.lt("_id", range.get("upper")));
+            }
+
+            List<Document> batch = collection.find(Filters.and(conditions))
+                    .projection(migration.projection())
+                    .sort(Sorts.ascending("_id"))
+                    .limit(properties.getBatchSize())
+                    .into(new ArrayList<>());
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<WriteModel<Document>> writes = migration.migrate(batch);
+            if (!writes.isEmpty()) {
+                collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            }
+            lastId = batch.get(batch.size() - 1).get("_id");
+            migrated += batch.size();
+            checkpoint(checkpoints, migration, Updates.combine(
+                    Updates.set(prefix + "lastId", lastId),
+                    Updates.inc(prefix + "migrated", (long) batch.size())
+            ));
+
+            if (properties.getThrottleMs() > 0) {
+                Thread.sleep(properties.getThrottleMs());
+            }
+        }
+
+        checkpoint(checkpoints, migration, Updates.set(prefix + "done", true));
+        return migrated;
+    }
+}
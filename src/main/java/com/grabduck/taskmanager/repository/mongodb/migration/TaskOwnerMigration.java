@@ -1,76 +1,74 @@
 package com.grabduck.taskmanager.repository.mongodb.migration;
 
 import com.grabduck.taskmanager.repository.UserRepository;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateManyModel;
 import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.event.EventListener;
-import org.springframework.data.mongodb.core.MongoTemplate;
+import org.bson.conversions.Bson;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 
 /**
  * Migration script to add owner_id field to existing tasks.
- * This will run once when the application starts and assign all existing tasks
- * to the first available user in the system.
+ * All tasks without an owner are assigned to the first user in the system.
  */
-@Slf4j
 @Component
 @RequiredArgsConstructor
-public class TaskOwnerMigration {
+public class TaskOwnerMigration implements Migration {
     private static final String MIGRATION_ID = "ADD_OWNER_TO_TASKS_001";
-    
-    private final MongoTemplate mongoTemplate;
+
     private final UserRepository userRepository;
 
-    @EventListener(ApplicationReadyEvent.class)
-    public void migrate() {
-        MongoDatabase database = mongoTemplate.getDb();
-        MongoCollection<Document> migrationCollection = database.getCollection("migrations");
+    private volatile String defaultOwnerId;
 
-        // Check if migration was already applied
-        if (isMigrationApplied(migrationCollection)) {
-            log.info("Migration {} already applied, skipping", MIGRATION_ID);
-            return;
-        }
+    @Override
+    public String id() {
+        return MIGRATION_ID;
+    }
 
-        try {
-            // Get the first user from the system to assign tasks to
-            String defaultOwnerId = userRepository.findAllUsers()
-                .stream()
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("No users found in the system"))
-                .id()
-                .toString();
+    @Override
+    public int version() {
+        return 1;
+    }
 
-            // Update all tasks that don't have an owner
-            MongoCollection<Document> tasksCollection = database.getCollection("tasks");
-            tasksCollection.updateMany(
-                new Document("owner_id", new Document("$exists", false)),
-                Updates.set("owner_id", defaultOwnerId)
-            );
+    @Override
+    public String collection() {
+        return "tasks";
+    }
 
-            // Record migration as completed
-            recordMigration(migrationCollection);
-            log.info("Successfully migrated tasks to include owner_id");
-        } catch (Exception e) {
-            log.error("Failed to migrate tasks", e);
-            throw new RuntimeException("Failed to migrate tasks", e);
-        }
+    @Override
+    public Bson filter() {
+        return Filters.exists("owner_id", false);
+    }
+
+    @Override
+    public Bson projection() {
+        return Projections.include("_id");
     }
 
-    private boolean isMigrationApplied(MongoCollection<Document> collection) {
-        return collection.countDocuments(new Document("_id", MIGRATION_ID)) > 0;
+    @Override
+    public List<WriteModel<Document>> migrate(List<Document> batch) {
+        List<Object> ids = batch.stream()
+                .map(task -> task.get("_id"))
+                .toList();
+        return List.of(new UpdateManyModel<>(
+                Filters.and(Filters.in("_id", ids), filter()),
+                Updates.set("owner_id", defaultOwnerId())
+        ));
     }
 
-    private void recordMigration(MongoCollection<Document> collection) {
-        Document migration = new Document("_id", MIGRATION_ID)
-            .append("appliedAt", System.currentTimeMillis());
-        collection.insertOne(migration);
+    private String defaultOwnerId() {
+        if (defaultOwnerId == null) {
+            defaultOwnerId = userRepository.findFirstUser()
+                    .orElseThrow(() -> new IllegalStateException("No users found in the system"))
+                    .id()
+                    .toString();
+        }
+        return defaultOwnerId;
     }
 }
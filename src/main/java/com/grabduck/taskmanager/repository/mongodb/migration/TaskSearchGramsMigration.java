@@ -0,0 +1,59 @@
+package com.grabduck.taskmanager.repository.mongodb.migration;
+
+import com.grabduck.taskmanager.util.Trigrams;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Migration script to add the search_grams trigram field to existing tasks,
+ * so that they can be found through the trigram index used by task search.
+ * Tasks saved after this change get the field on every write.
+ */
+@Component
+public class TaskSearchGramsMigration implements Migration {
+    public static final String MIGRATION_ID = "ADD_SEARCH_GRAMS_TO_TASKS_002";
+
+    @Override
+    public String id() {
+        return MIGRATION_ID;
+    }
+
+    @Override
+    public int version() {
+        return 2;
+    }
+
+    @Override
+    public String collection() {
+        return "tasks";
+    }
+
+    @Override
+    public Bson filter() {
+        return Filters.exists("search_grams", false);
+    }
+
+    @Override
+    public Bson projection() {
+        return Projections.include("name", "description");
+    }
+
+    @Override
+    public List<WriteModel<Document>> migrate(List<Document> batch) {
+        return batch.stream()
+                .<WriteModel<Document>>map(task -> new UpdateOneModel<>(
+                        Filters.eq("_id", task.get("_id")),
+                        Updates.set("search_grams", List.copyOf(
+                                Trigrams.ofTask(task.getString("name"), task.getString("description"))))
+                ))
+                .toList();
+    }
+}
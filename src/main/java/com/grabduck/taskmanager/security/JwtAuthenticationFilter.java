@@ -7,6 +7,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -15,6 +16,11 @@ import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests that carry a bearer token. The principal is built from the verified
+ * claims of the token, so an authenticated request costs no user lookup; only tokens issued
+ * without a user id claim fall back to loading the user.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -30,19 +36,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = extractJwtFromRequest(request);
             
             if (StringUtils.hasText(jwt) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                String username = jwtTokenUtil.extractUsername(jwt);
-                
-                if (StringUtils.hasText(username)) {
-                    var userDetails = userDetailsService.loadUserByUsername(username);
-                    if (jwtTokenUtil.isTokenValid(jwt, userDetails)) {
-                        var authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    }
+                UserDetails userDetails = jwtTokenUtil.extractPrincipal(jwt)
+                        .map(UserDetails.class::cast)
+                        .orElseGet(() -> loadUser(jwt));
+                if (userDetails != null) {
+                    var authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities()
+                    );
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
         } catch (Exception ex) {
@@ -52,6 +56,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Looks up the user of a token that was issued without a user id claim.
+     *
+     * @return the user, or null if the token is not valid for it
+     */
+    private UserDetails loadUser(String jwt) {
+        String username = jwtTokenUtil.extractUsername(jwt);
+        if (!StringUtils.hasText(username)) {
+            return null;
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return jwtTokenUtil.isTokenValid(jwt, userDetails) ? userDetails : null;
+    }
+
     private String extractJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -6,12 +6,19 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.UUID;
 
-public record JwtUserDetails(Long id, String username, String password, Collection<? extends GrantedAuthority> authorities, boolean active) implements UserDetails {
+/**
+ * Principal of an authenticated user that carries the user's id, so that requests can be
+ * attributed to the user without looking it up. Built from the stored user on login and from
+ * the verified claims of a token on every other request, where it has no password.
+ */
+public record JwtUserDetails(UUID id, String username, String password, Collection<? extends GrantedAuthority> authorities, boolean active) implements UserDetails {
 
     public JwtUserDetails(User user) {
-        this(user.id().getMostSignificantBits(), user.username(), user.password(), Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")), true);
+        this(user.id(), user.username(), user.password(), user.roles().stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
+                .toList(), true);
     }
 
     @Override
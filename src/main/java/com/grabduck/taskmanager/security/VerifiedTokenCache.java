@@ -0,0 +1,78 @@
+package com.grabduck.taskmanager.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Claims of recently verified tokens, so that a client sending the same token with every request
+ * has its signature checked once instead of on every request. Entries are keyed by a SHA-256
+ * hash of the token, so the cache holds no usable tokens, and expire with the token itself.
+ * When the cache is full, expired entries are dropped first and the whole cache if that is not
+ * enough.
+ */
+class VerifiedTokenCache {
+    private record Entry(Claims claims, long expiresAtMs) {}
+
+    private final int maxSize;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the claims of the token if it was verified before and has not expired since.
+     */
+    Optional<Claims> get(String token, long nowMs) {
+        if (maxSize <= 0) {
+            return Optional.empty();
+        }
+        String key = hash(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAtMs() <= nowMs) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.claims());
+    }
+
+    /**
+     * Caches the claims of a verified token until its expiration. Tokens without an expiration
+     * are not cached.
+     */
+    void put(String token, Claims claims, long nowMs) {
+        if (maxSize <= 0 || claims.getExpiration() == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(entry -> entry.expiresAtMs() <= nowMs);
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(hash(token), new Entry(claims, claims.getExpiration().getTime()));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
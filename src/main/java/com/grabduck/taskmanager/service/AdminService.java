@@ -0,0 +1,44 @@
+package com.grabduck.taskmanager.service;
+
+import com.grabduck.taskmanager.repository.mongodb.TaskIndexManager;
+import com.grabduck.taskmanager.util.CacheStats;
+import com.grabduck.taskmanager.util.TinyLfuCache;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Operational views for administrators.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdminService {
+
+    private final TaskIndexManager taskIndexManager;
+    private final List<TinyLfuCache<?, ?>> caches;
+    private static final Logger log = LoggerFactory.getLogger(AdminService.class);
+
+    /**
+     * Returns the usage statistics of every index on the tasks collection.
+     */
+    public List<TaskIndexManager.TaskIndexUsage> getTaskIndexUsage() {
+        try {
+            return taskIndexManager.usage();
+        } catch (Exception e) {
+            log.error("Failed to read task index usage", e);
+            throw new RuntimeException("Failed to read task index usage due to database error", e);
+        }
+    }
+
+    /**
+     * Returns the hit, eviction and load statistics of every cache.
+     */
+    public List<CacheStats> getCacheStats() {
+        return caches.stream()
+                .map(TinyLfuCache::stats)
+                .toList();
+    }
+}
@@ -1,15 +1,30 @@
 package com.grabduck.taskmanager.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
+import com.grabduck.taskmanager.domain.CountMode;
 import com.grabduck.taskmanager.domain.Task;
-import com.grabduck.taskmanager.domain.TaskPriority;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskImportReport;
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+import com.grabduck.taskmanager.domain.TaskPatch;
+import com.grabduck.taskmanager.domain.TaskView;
 import com.grabduck.taskmanager.domain.TaskStatus;
 import com.grabduck.taskmanager.domain.Page;
 import com.grabduck.taskmanager.domain.SortOption;
 import com.grabduck.taskmanager.dto.CreateTaskRequest;
+import com.grabduck.taskmanager.dto.TaskBatchRequest;
 import com.grabduck.taskmanager.exception.InvalidTaskException;
 import com.grabduck.taskmanager.exception.TaskNotFoundException;
+import com.grabduck.taskmanager.exception.TaskVersionConflictException;
 import com.grabduck.taskmanager.repository.TaskRepository;
 import com.grabduck.taskmanager.repository.UserRepository;
+import com.grabduck.taskmanager.security.JwtUserDetails;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,23 +32,52 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TaskService {
 
+    /**
+     * Maximum number of operations in one batch request
+     */
+    public static final int MAX_BATCH_SIZE = 500;
+
+    /**
+     * Number of imported tasks written per batch
+     */
+    public static final int IMPORT_BATCH_SIZE = 1_000;
+
+    /**
+     * Maximum number of item errors listed in an import report; further errors are only counted
+     */
+    public static final int MAX_IMPORT_ERRORS = 1_000;
+
     private final TaskRepository taskRepository;
     private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
     private static final Logger log = LoggerFactory.getLogger(TaskService.class);
 
+    /**
+     * Returns the id of the current user. A {@link JwtUserDetails} principal already carries it;
+     * other principals are looked up by username.
+     */
     private UUID getCurrentUserId() {
         try {
-            String username = ((UserDetails) SecurityContextHolder.getContext()
-                    .getAuthentication().getPrincipal()).getUsername();
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            if (principal instanceof JwtUserDetails user && user.id() != null) {
+                return user.id();
+            }
+            String username = ((UserDetails) principal).getUsername();
             
             return userRepository.findByUsername(username)
                     .orElseThrow(() -> new IllegalStateException("Current user not found"))
@@ -87,74 +131,408 @@ public class TaskService {
             }
             validateTask(task);
             UUID currentUserId = getCurrentUserId();
-            
-            // Verify task exists and belongs to current user
-            Task existingTask = taskRepository.findById(taskId, currentUserId)
-                    .orElseThrow(() -> new TaskNotFoundException(taskId));
-            
+
+            // Scoped to the current user, so the original owner is preserved
             Task updatedTask = new Task(
-                    existingTask.id(),
+                    taskId,
                     task.name(),
                     task.description(),
                     task.dueDate(),
                     task.status(),
                     task.priority(),
                     task.tags(),
-                    existingTask.ownerId() // Preserve the original owner
+                    currentUserId,
+                    task.version()
             );
-            
-            return taskRepository.save(updatedTask);
+
+            return taskRepository.update(updatedTask)
+                    .orElseThrow(() -> updateFailure(taskId, currentUserId, task.version()));
+        } catch (TaskNotFoundException | TaskVersionConflictException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to update task with id: {}", taskId, e);
             throw new RuntimeException("Failed to update task due to database error", e);
         }
     }
 
+    public Task patchTask(UUID taskId, TaskPatch patch) {
+        try {
+            if (taskId == null) {
+                throw new InvalidTaskException("Task ID cannot be null");
+            }
+            validatePatch(patch);
+            UUID currentUserId = getCurrentUserId();
+
+            return taskRepository.patch(taskId, currentUserId, patch)
+                    .orElseThrow(() -> updateFailure(taskId, currentUserId, patch.version()));
+        } catch (InvalidTaskException | TaskNotFoundException | TaskVersionConflictException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to patch task with id: {}", taskId, e);
+            throw new RuntimeException("Failed to patch task due to database error", e);
+        }
+    }
+
+    /**
+     * Tells a missing task from a stale version; only looks the task up when a version was given.
+     */
+    private RuntimeException updateFailure(UUID taskId, UUID ownerId, Long version) {
+        if (version != null && taskRepository.findById(taskId, ownerId).isPresent()) {
+            return new TaskVersionConflictException(taskId, version);
+        }
+        return new TaskNotFoundException(taskId);
+    }
+
     public void deleteTask(UUID taskId) {
         try {
             if (taskId == null) {
                 throw new InvalidTaskException("Task ID cannot be null");
             }
             UUID currentUserId = getCurrentUserId();
-            
-            // Verify task exists and belongs to current user
-            taskRepository.findById(taskId, currentUserId)
-                    .orElseThrow(() -> new TaskNotFoundException(taskId));
-            
-            taskRepository.deleteById(taskId, currentUserId);
+
+            if (taskRepository.deleteById(taskId, currentUserId) == 0) {
+                throw new TaskNotFoundException(taskId);
+            }
+        } catch (TaskNotFoundException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to delete task with id: {}", taskId, e);
             throw new RuntimeException("Failed to delete task due to database error", e);
         }
     }
 
+    /**
+     * Applies a batch of task operations for the current user, who is resolved once for the
+     * whole batch. Operations that are invalid on their own are reported as such and the rest
+     * are applied together by the repository.
+     *
+     * @return the result of every operation, in order
+     */
+    public List<TaskOperationResult> applyBatch(List<TaskBatchRequest.Operation> operations) {
+        try {
+            validateBatch(operations);
+            UUID currentUserId = getCurrentUserId();
+
+            TaskOperationResult[] results = new TaskOperationResult[operations.size()];
+            List<TaskOperation> valid = new ArrayList<>(operations.size());
+            List<Integer> positions = new ArrayList<>(operations.size());
+            for (int index = 0; index < operations.size(); index++) {
+                TaskBatchRequest.Operation operation = operations.get(index);
+                try {
+                    valid.add(toOperation(operation, currentUserId));
+                    positions.add(index);
+                } catch (InvalidTaskException e) {
+                    results[index] = TaskOperationResult.invalid(operation != null ? operation.taskId() : null, e.getMessage());
+                }
+            }
+
+            if (!valid.isEmpty()) {
+                List<TaskOperationResult> applied = taskRepository.applyBatch(currentUserId, valid);
+                for (int i = 0; i < applied.size(); i++) {
+                    results[positions.get(i)] = applied.get(i);
+                }
+            }
+            return List.of(results);
+        } catch (InvalidTaskException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to apply batch of {} task operations", operations.size(), e);
+            throw new RuntimeException("Failed to apply task batch due to database error", e);
+        }
+    }
+
+    private TaskOperation toOperation(TaskBatchRequest.Operation operation, UUID ownerId) {
+        if (operation == null || operation.type() == null) {
+            throw new InvalidTaskException("Operation type cannot be null");
+        }
+        if (operation.type() != TaskOperation.Type.CREATE && operation.taskId() == null) {
+            throw new InvalidTaskException("Task ID cannot be null");
+        }
+        return switch (operation.type()) {
+            case CREATE -> TaskOperation.create(toTask(UUID.randomUUID(), operation.task(), true, ownerId));
+            case UPDATE -> TaskOperation.update(toTask(operation.taskId(), operation.task(), false, ownerId));
+            case PATCH -> {
+                validatePatch(operation.patch());
+                yield TaskOperation.patch(operation.taskId(), operation.patch());
+            }
+            case DELETE -> TaskOperation.delete(operation.taskId(), operation.version());
+        };
+    }
+
+    private static Task toTask(UUID taskId, TaskBatchRequest.TaskFields fields, boolean create, UUID ownerId) {
+        if (fields == null) {
+            throw new InvalidTaskException("Task cannot be null");
+        }
+        if (fields.name() == null || fields.name().trim().isEmpty()) {
+            throw new InvalidTaskException("Task name cannot be null or empty");
+        }
+        TaskStatus status = create && fields.status() == null ? TaskStatus.NOT_STARTED : fields.status();
+        if (status == null) {
+            throw new InvalidTaskException("Task status cannot be null");
+        }
+        if (fields.priority() == null) {
+            throw new InvalidTaskException("Task priority cannot be null");
+        }
+        if (fields.tags() == null) {
+            throw new InvalidTaskException("Task tags cannot be null");
+        }
+        return new Task(
+                taskId,
+                fields.name(),
+                fields.description(),
+                fields.dueDate(),
+                status,
+                fields.priority(),
+                fields.tags(),
+                ownerId,
+                create ? null : fields.version()
+        );
+    }
+
+    private void validateBatch(List<TaskBatchRequest.Operation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new InvalidTaskException("Batch must contain at least one operation");
+        }
+        if (operations.size() > MAX_BATCH_SIZE) {
+            throw new InvalidTaskException("Batch cannot contain more than " + MAX_BATCH_SIZE + " operations");
+        }
+        Set<UUID> taskIds = new HashSet<>();
+        for (TaskBatchRequest.Operation operation : operations) {
+            if (operation != null && operation.type() != TaskOperation.Type.CREATE && operation.taskId() != null
+                    && !taskIds.add(operation.taskId())) {
+                throw new InvalidTaskException("Task " + operation.taskId() + " appears more than once in the batch");
+            }
+        }
+    }
+
+    /**
+     * Applies the patch to every task of the current user that matches the filter.
+     *
+     * @return the number of updated tasks
+     */
+    public long updateTasks(TaskFilter filter, TaskPatch patch) {
+        try {
+            validatePatch(patch);
+            if (patch.version() != null) {
+                throw new InvalidTaskException("Version cannot be used when updating tasks by filter");
+            }
+            UUID currentUserId = getCurrentUserId();
+            return taskRepository.updateTasks(currentUserId, filter, patch);
+        } catch (InvalidTaskException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to update tasks with filter: {}", filter, e);
+            throw new RuntimeException("Failed to update tasks due to database error", e);
+        }
+    }
+
+    /**
+     * Deletes every task of the current user that matches the filter.
+     *
+     * @return the number of deleted tasks
+     */
+    public long deleteTasks(TaskFilter filter) {
+        try {
+            UUID currentUserId = getCurrentUserId();
+            return taskRepository.deleteTasks(currentUserId, filter);
+        } catch (Exception e) {
+            log.error("Failed to delete tasks with filter: {}", filter, e);
+            throw new RuntimeException("Failed to delete tasks due to database error", e);
+        }
+    }
+
     public Page<Task> findTasks(
-            String search,
-            TaskStatus status,
-            TaskPriority priority,
-            String tag,
+            TaskFilter filter,
             int page,
             int size,
-            SortOption sortOption
+            SortOption sortOption,
+            CountMode countMode,
+            TaskView view
     ) {
         try {
             UUID currentUserId = getCurrentUserId();
             return taskRepository.findTasks(
                     currentUserId,
-                    search,
-                    status,
-                    priority,
-                    tag,
+                    filter,
                     page,
                     size,
-                    sortOption
+                    sortOption,
+                    countMode,
+                    view
+            );
+        } catch (Exception e) {
+            log.error("Failed to find tasks with filter: {}", filter, e);
+            throw new RuntimeException("Failed to find tasks due to database error", e);
+        }
+    }
+
+    public Page<Task> findTasksAfter(
+            TaskFilter filter,
+            TaskCursor cursor,
+            int size,
+            CountMode countMode,
+            TaskView view
+    ) {
+        try {
+            UUID currentUserId = getCurrentUserId();
+            return taskRepository.findTasksAfter(
+                    currentUserId,
+                    filter,
+                    cursor,
+                    size,
+                    countMode,
+                    view
             );
         } catch (Exception e) {
-            log.error("Failed to find tasks with filters: search={}, status={}, priority={}, tag={}", search, status, priority, tag, e);
+            log.error("Failed to find tasks with filter: {} after cursor: {}", filter, cursor, e);
             throw new RuntimeException("Failed to find tasks due to database error", e);
         }
     }
 
+    /**
+     * Streams every task of the current user that matches the filter, for exports.
+     * The current user is resolved before the stream is returned, so the stream can be consumed
+     * on another thread. The caller must close the stream.
+     */
+    public Stream<Task> streamTasks(TaskFilter filter) {
+        try {
+            UUID currentUserId = getCurrentUserId();
+            return taskRepository.streamTasks(currentUserId, filter);
+        } catch (Exception e) {
+            log.error("Failed to stream tasks with filter: {}", filter, e);
+            throw new RuntimeException("Failed to stream tasks due to database error", e);
+        }
+    }
+
+    /**
+     * Imports tasks for the current user from newline-delimited JSON or a JSON array of task
+     * creation requests. Items are parsed one at a time, validated like {@link #createTask} and
+     * written in batches of {@value #IMPORT_BATCH_SIZE}. The input is only read on once the
+     * previous batch is written, so memory stays bounded and a slow database slows down the
+     * upload instead of buffering it. Invalid items are skipped and reported; malformed JSON or
+     * a failed write ends the import with the tasks written so far.
+     *
+     * @return the number of imported tasks and the errors of the items that were not imported
+     */
+    public TaskImportReport importTasks(InputStream input) {
+        UUID currentUserId = getCurrentUserId();
+        String requestId = UUID.randomUUID().toString();
+        TaskImport progress = new TaskImport(currentUserId);
+
+        try (MappingIterator<CreateTaskRequest> items = objectMapper.readerFor(CreateTaskRequest.class).readValues(input)) {
+            for (long item = 1; ; item++) {
+                int line = items.getCurrentLocation().getLineNr();
+                CreateTaskRequest request;
+                try {
+                    if (!items.hasNextValue()) {
+                        break;
+                    }
+                    line = items.getParser().currentTokenLocation().getLineNr();
+                    request = items.nextValue();
+                } catch (ValueInstantiationException e) {
+                    progress.fail(item, line, e.getCause() != null ? e.getCause().getMessage() : e.getOriginalMessage());
+                    continue;
+                } catch (JsonMappingException e) {
+                    progress.fail(item, line, e.getOriginalMessage());
+                    continue;
+                } catch (JsonProcessingException e) {
+                    progress.fail(item, line, "Malformed JSON: " + e.getOriginalMessage());
+                    progress.write();
+                    return progress.report(false);
+                }
+
+                try {
+                    validateCreateTaskRequest(request, requestId);
+                } catch (InvalidTaskException e) {
+                    progress.fail(item, line, e.getMessage());
+                    continue;
+                }
+                progress.add(item, line, new Task(
+                        UUID.randomUUID(),
+                        request.name(),
+                        request.description(),
+                        request.dueDate(),
+                        TaskStatus.NOT_STARTED,
+                        request.priority(),
+                        request.tags(),
+                        currentUserId
+                ));
+                if (progress.isBatchFull() && !progress.write()) {
+                    return progress.report(false);
+                }
+            }
+            return progress.report(progress.write());
+        } catch (IOException e) {
+            log.error("Failed to read task import after {} imported tasks", progress.imported, e);
+            throw new RuntimeException("Failed to read task import", e);
+        }
+    }
+
+    /**
+     * State of one running import: the batch of tasks still to be written and the report so far.
+     */
+    private class TaskImport {
+        private record Pending(long item, int line, Task task) {}
+
+        private final UUID ownerId;
+        private final List<Pending> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private final List<TaskImportReport.ItemError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        TaskImport(UUID ownerId) {
+            this.ownerId = ownerId;
+        }
+
+        void add(long item, int line, Task task) {
+            batch.add(new Pending(item, line, task));
+        }
+
+        boolean isBatchFull() {
+            return batch.size() >= IMPORT_BATCH_SIZE;
+        }
+
+        void fail(long item, int line, String message) {
+            failed++;
+            if (errors.size() < MAX_IMPORT_ERRORS) {
+                errors.add(new TaskImportReport.ItemError(item, line, message));
+            }
+        }
+
+        /**
+         * Writes the pending batch with one bulk write.
+         *
+         * @return false if the write failed as a whole
+         */
+        boolean write() {
+            if (batch.isEmpty()) {
+                return true;
+            }
+            try {
+                List<TaskOperationResult> results = taskRepository.applyBatch(ownerId,
+                        batch.stream().map(pending -> TaskOperation.create(pending.task())).toList());
+                for (int i = 0; i < results.size(); i++) {
+                    if (results.get(i).isSuccess()) {
+                        imported++;
+                    } else {
+                        fail(batch.get(i).item(), batch.get(i).line(), results.get(i).error());
+                    }
+                }
+                return true;
+            } catch (Exception e) {
+                log.error("Failed to write batch of {} imported tasks", batch.size(), e);
+                batch.forEach(pending -> fail(pending.item(), pending.line(), "Failed to import task due to database error"));
+                return false;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        TaskImportReport report(boolean complete) {
+            return new TaskImportReport(imported, failed, complete, List.copyOf(errors));
+        }
+    }
+
     private void validateCreateTaskRequest(CreateTaskRequest request, String requestId) {
         if (request == null) {
             throw new InvalidTaskException("Task request cannot be null");
@@ -173,6 +551,17 @@ public class TaskService {
         }
     }
 
+    private void validatePatch(TaskPatch patch) {
+        if (patch == null || patch.isEmpty()) {
+            throw new InvalidTaskException("Task patch must change at least one field");
+        }
+        Set<String> conflicting = new HashSet<>(patch.addTags());
+        conflicting.retainAll(patch.removeTags());
+        if (!conflicting.isEmpty()) {
+            throw new InvalidTaskException("Tags cannot be both added and removed: " + conflicting);
+        }
+    }
+
     private void validateTask(Task task) {
         if (task == null) {
             throw new InvalidTaskException("Task cannot be null");
@@ -0,0 +1,47 @@
+package com.grabduck.taskmanager.util;
+
+/**
+ * Counters of a cache since startup, for sizing it.
+ *
+ * @param name               name of the cache
+ * @param size               number of cached entries
+ * @param maxSize            maximum number of cached entries
+ * @param hits               lookups answered from the cache
+ * @param misses             lookups that had to be loaded
+ * @param evictions          entries removed to make room or because they expired
+ * @param rejections         loaded values not admitted because they were accessed less often
+ *                           than the entry they would have replaced
+ * @param loads              values loaded on a miss
+ * @param averageLoadMillis  average time of a load in milliseconds
+ * @param coalesced          misses that waited for a load of the same key already in flight
+ *                           instead of loading it again
+ */
+public record CacheStats(
+    String name,
+    int size,
+    int maxSize,
+    long hits,
+    long misses,
+    long evictions,
+    long rejections,
+    long loads,
+    double averageLoadMillis,
+    long coalesced
+) {
+    /**
+     * Returns the share of lookups answered from the cache, or 0 before the first lookup.
+     */
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the share of loaded values that were shared with coalesced misses instead of
+     * loaded for them, or 0 before the first load.
+     */
+    public double coalescingRatio() {
+        long served = loads + coalesced;
+        return served == 0 ? 0 : (double) coalesced / served;
+    }
+}
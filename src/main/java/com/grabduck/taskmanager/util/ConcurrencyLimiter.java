@@ -0,0 +1,67 @@
+package com.grabduck.taskmanager.util;
+
+import com.grabduck.taskmanager.exception.ServiceBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds how many callers run an action at the same time. Callers beyond the limit wait for a
+ * permit in arrival order, up to a timeout, so that a burst of requests queues here instead of
+ * inside the resource the limit protects.
+ */
+public class ConcurrencyLimiter {
+    private final String name;
+    private final int maxConcurrent;
+    private final long timeoutMs;
+    private final Semaphore permits;
+
+    public ConcurrencyLimiter(String name, int maxConcurrent, Duration timeout) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.timeoutMs = timeout.toMillis();
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Runs the action once a permit is free.
+     *
+     * @throws ServiceBusyException if no permit became free within the timeout
+     */
+    public <T> T call(Supplier<T> action) {
+        acquire();
+        try {
+            return action.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of callers that could start right now.
+     */
+    public int available() {
+        return permits.availablePermits();
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ServiceBusyException("Timed out after " + timeoutMs + " ms waiting for one of "
+                        + maxConcurrent + " " + name + " permits", Duration.ofMillis(timeoutMs));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a " + name + " permit", e);
+        }
+    }
+}
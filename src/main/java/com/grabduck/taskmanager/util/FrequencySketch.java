@@ -0,0 +1,81 @@
+package com.grabduck.taskmanager.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Approximate access frequencies of keys in a count-min sketch of four saturating counters per
+ * key, as used for TinyLFU admission. All counters are halved once the number of recorded
+ * accesses reaches ten times the capacity, so the frequencies follow recent popularity.
+ * Concurrent increments may occasionally be lost, which only makes the estimate more approximate.
+ */
+final class FrequencySketch {
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+    private static final int MAX_COUNT = 15;
+
+    private final int[] table;
+    private final int mask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity * 4 - 1)) << 1;
+        this.table = new int[size];
+        this.mask = size - 1;
+        this.sampleSize = Math.max(1, capacity) * 10;
+    }
+
+    /**
+     * Records an access of the key.
+     *
+     * @return whether the counters were halved by this access
+     */
+    boolean increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int seed : SEEDS) {
+            int index = index(hash, seed);
+            if (table[index] < MAX_COUNT) {
+                table[index]++;
+                added = true;
+            }
+        }
+        if (added && additions.incrementAndGet() >= sampleSize) {
+            reset();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the estimated number of recent accesses of the key.
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int seed : SEEDS) {
+            frequency = Math.min(frequency, table[index(hash, seed)]);
+        }
+        return frequency;
+    }
+
+    private synchronized void reset() {
+        if (additions.get() < sampleSize) {
+            return;
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] >>>= 1;
+        }
+        additions.set(0);
+    }
+
+    private int index(int hash, int seed) {
+        int h = (hash ^ seed) * 0x9E3779B1;
+        return (h ^ (h >>> 15)) & mask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45D9F3B;
+        return hash ^ (hash >>> 16);
+    }
+}
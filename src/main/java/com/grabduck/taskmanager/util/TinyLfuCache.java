@@ -0,0 +1,284 @@
+package com.grabduck.taskmanager.util;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, concurrent cache with a time to live and TinyLFU admission. Every lookup is counted
+ * in a {@link FrequencySketch}; when the cache is full, a new entry only gets in by evicting the
+ * least frequently accessed of a few entries sampled from a random part of the table, and only if the new key was accessed more
+ * often than that entry. A burst of one-off lookups therefore cannot flush the entries that are
+ * read again and again. Expired entries are dropped when read, when sampled, and in a sweep
+ * whenever the sketch ages its counters; so are entries whose key has been marked stale through
+ * {@link #reclaimWhen}. Concurrent misses of the same key through
+ * {@link #getOrLoad} share a single load. Hits, misses, evictions, rejections, load times and
+ * coalesced misses are counted for {@link #stats()}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type; values must not be null
+ */
+public class TinyLfuCache<K, V> {
+    private static final int SAMPLE_SIZE = 8;
+
+    private record Entry<V>(V value, long expiresAtMs) {}
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMs;
+    private final LongSupplier clock;
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private volatile Predicate<K> stale = key -> false;
+
+    public TinyLfuCache(String name, int maxSize, Duration ttl) {
+        this(name, maxSize, ttl, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the current time in milliseconds
+     */
+    public TinyLfuCache(String name, int maxSize, Duration ttl, LongSupplier clock) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMs = ttl.toMillis();
+        this.clock = clock;
+        this.sketch = new FrequencySketch(Math.max(1, maxSize));
+    }
+
+    /**
+     * Returns the value cached for the key, or null if there is none or it has expired.
+     * Counts as a hit or miss and as an access of the key.
+     */
+    public V get(K key) {
+        if (sketch.increment(key)) {
+            sweepExpired();
+        }
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAtMs() <= clock.getAsLong()) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * Caches the value for the key, if the key is already cached, there is room, or the key is
+     * accessed more often than the entry it would evict.
+     *
+     * @return whether the value was cached
+     */
+    public boolean put(K key, V value) {
+        if (maxSize <= 0 || ttlMs <= 0) {
+            return false;
+        }
+        if (!entries.containsKey(key) && entries.size() >= maxSize && !makeRoom(key)) {
+            rejections.increment();
+            return false;
+        }
+        entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMs));
+        return true;
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Drops every entry whose value matches the predicate; visits the whole cache.
+     */
+    public void invalidateIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value()));
+    }
+
+    /**
+     * Treats entries whose key matches the predicate as expired when they are sampled for eviction
+     * or swept, so keys that can no longer be looked up give up their room without a scan of the
+     * cache. The predicate is called on sampled keys and must be cheap.
+     */
+    public void reclaimWhen(Predicate<K> stale) {
+        this.stale = stale;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the value cached for the key, or loads and caches it. Misses of a key whose load is
+     * already in flight wait for that load and return its value, or throw its exception, instead
+     * of loading it again; this holds even if the loaded value is not admitted to the cache.
+     */
+    public V getOrLoad(K key, Supplier<V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            long start = System.nanoTime();
+            value = loader.get();
+            recordLoad(System.nanoTime() - start);
+            put(key, value);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Counts a load of a missing value that took the given time.
+     */
+    public void recordLoad(long nanos) {
+        loads.increment();
+        loadNanos.add(nanos);
+    }
+
+    public CacheStats stats() {
+        long loadCount = loads.sum();
+        return new CacheStats(
+                name,
+                entries.size(),
+                maxSize,
+                hits.sum(),
+                misses.sum(),
+                evictions.sum(),
+                rejections.sum(),
+                loadCount,
+                loadCount == 0 ? 0 : loadNanos.sum() / 1_000_000.0 / loadCount,
+                coalesced.sum()
+        );
+    }
+
+    /**
+     * Evicts an expired or stale sampled entry, or the least frequently accessed sampled entry if the
+     * candidate is accessed more often.
+     *
+     * @return whether there is room for the candidate
+     */
+    private boolean makeRoom(K candidate) {
+        long now = clock.getAsLong();
+        K victim = null;
+        Entry<V> victimEntry = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (Map.Entry<K, Entry<V>> entry : sample()) {
+            if (entry.getValue().expiresAtMs() <= now || stale.test(entry.getKey())) {
+                victim = entry.getKey();
+                victimEntry = entry.getValue();
+                victimFrequency = -1;
+                break;
+            }
+            int frequency = sketch.frequency(entry.getKey());
+            if (frequency < victimFrequency) {
+                victim = entry.getKey();
+                victimEntry = entry.getValue();
+                victimFrequency = frequency;
+            }
+        }
+        if (victim == null) {
+            return true;
+        }
+        if (sketch.frequency(candidate) <= victimFrequency) {
+            return false;
+        }
+        if (entries.remove(victim, victimEntry)) {
+            evictions.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Picks up to {@link #SAMPLE_SIZE} entries that are next to each other in the table, starting
+     * in a random part of it: the table is halved at random until a part holds about a sample,
+     * and the parts split off on the way fill up the sample if that part holds fewer entries.
+     */
+    private List<Map.Entry<K, Entry<V>>> sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Deque<Spliterator<Map.Entry<K, Entry<V>>>> rest = new ArrayDeque<>();
+        Spliterator<Map.Entry<K, Entry<V>>> part = entries.entrySet().spliterator();
+        while (part.estimateSize() > SAMPLE_SIZE) {
+            Spliterator<Map.Entry<K, Entry<V>>> lower = part.trySplit();
+            if (lower == null) {
+                break;
+            }
+            if (random.nextBoolean()) {
+                rest.push(part);
+                part = lower;
+            } else {
+                rest.push(lower);
+            }
+        }
+        List<Map.Entry<K, Entry<V>>> sample = new ArrayList<>(SAMPLE_SIZE);
+        while (sample.size() < SAMPLE_SIZE) {
+            if (!part.tryAdvance(sample::add)) {
+                if (rest.isEmpty()) {
+                    break;
+                }
+                part = rest.pop();
+            }
+        }
+        return sample;
+    }
+
+    private void sweepExpired() {
+        long now = clock.getAsLong();
+        entries.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue().expiresAtMs() <= now || stale.test(entry.getKey());
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.grabduck.taskmanager.util;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into lower-cased character trigrams for substring search.
+ * Any string of at least {@link #LENGTH} characters is a substring of a text only if
+ * every trigram of the string is also a trigram of the text, so trigram posting lists
+ * can be intersected to narrow the candidates before the actual substring check.
+ */
+public final class Trigrams {
+    public static final int LENGTH = 3;
+
+    private Trigrams() {
+    }
+
+    /**
+     * Normalizes text for indexing and matching.
+     *
+     * @param text the text to normalize, may be null
+     * @return the lower-cased text, or an empty string for null
+     */
+    public static String normalize(String text) {
+        return text != null ? text.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Returns the distinct trigrams of already normalized text.
+     * Text shorter than {@link #LENGTH} has no trigrams.
+     */
+    public static Set<String> of(String normalized) {
+        Set<String> trigrams = new HashSet<>();
+        addTo(trigrams, normalized);
+        return trigrams;
+    }
+
+    /**
+     * Returns the distinct trigrams of a task's name and description.
+     * Trigrams never span the two fields.
+     */
+    public static Set<String> ofTask(String name, String description) {
+        Set<String> trigrams = new HashSet<>();
+        addTo(trigrams, normalize(name));
+        addTo(trigrams, normalize(description));
+        return trigrams;
+    }
+
+    /**
+     * Checks whether a normalized search term is long enough to be looked up by trigrams.
+     */
+    public static boolean isSearchable(String normalized) {
+        return normalized.length() >= LENGTH;
+    }
+
+    private static void addTo(Set<String> trigrams, String normalized) {
+        for (int i = 0; i + LENGTH <= normalized.length(); i++) {
+            trigrams.add(normalized.substring(i, i + LENGTH));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.grabduck.taskmanager.util;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded map whose entries expire after a time to live chosen per entry. Expired entries are
+ * dropped when they are read, or when the map is full; if dropping the expired entries does not
+ * make room, the whole map is cleared, which is cheap and keeps the bound without tracking
+ * recency. Safe for concurrent use.
+ *
+ * @param <K> the key type
+ * @param <V> the value type; values must not be null
+ */
+public class TtlCache<K, V> {
+    private record Entry<V>(V value, long expiresAtMs) {}
+
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    public TtlCache(int maxSize) {
+        this(maxSize, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the current time in milliseconds
+     */
+    public TtlCache(int maxSize, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the value cached for the key, or null if there is none or it has expired.
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMs() <= clock.getAsLong()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * Caches the value for the key for the given time. Nothing is cached if the cache has no room
+     * at all or the time to live is not positive.
+     */
+    public void put(K key, V value, Duration ttl) {
+        if (maxSize <= 0 || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            entries.values().removeIf(entry -> entry.expiresAtMs() <= now);
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry<>(value, now + ttl.toMillis()));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
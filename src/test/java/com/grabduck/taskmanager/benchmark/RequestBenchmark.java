@@ -0,0 +1,140 @@
+package com.grabduck.taskmanager.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures throughput and latency percentiles of one endpoint of a running server under a fixed
+ * number of concurrent connections, each sending its next request as soon as the previous one
+ * completed. Not a test; run its main method against a server started once with
+ * {@code concurrency.virtual-threads=false} and once, on Java 21, with {@code true}, and compare
+ * the reported throughput and p99.
+ * <p>
+ * Settings are read from system properties: {@code benchmark.url} (default
+ * {@code http://localhost:8080}), {@code benchmark.path} (default {@code /api/v1/tasks?size=20}),
+ * {@code benchmark.username} and {@code benchmark.password} of an existing user,
+ * {@code benchmark.connections} (default 5000), {@code benchmark.warmup-seconds} (default 10)
+ * and {@code benchmark.seconds} (default 60). Thousands of connections need a matching open
+ * file limit on both sides, e.g. {@code ulimit -n 65536}.
+ */
+public class RequestBenchmark {
+    private static final long BUCKET_NANOS = 100_000;
+    private static final int BUCKETS = 200_000;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean recording;
+    private volatile long stopAt;
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("benchmark.url", "http://localhost:8080");
+        String path = System.getProperty("benchmark.path", "/api/v1/tasks?size=20");
+        int connections = Integer.getInteger("benchmark.connections", 5000);
+        int warmupSeconds = Integer.getInteger("benchmark.warmup-seconds", 10);
+        int seconds = Integer.getInteger("benchmark.seconds", 60);
+
+        RequestBenchmark benchmark = new RequestBenchmark();
+        String token = benchmark.login(url, System.getProperty("benchmark.username", "admin"),
+                System.getProperty("benchmark.password", "admin"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        benchmark.run(request, connections, warmupSeconds, seconds);
+    }
+
+    private String login(String url, String username, String password) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/v1/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(
+                        Map.of("username", username, "password", password))))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode());
+        }
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.get("token").asText();
+    }
+
+    private void run(HttpRequest request, int connections, int warmupSeconds, int seconds) throws InterruptedException {
+        long start = System.nanoTime();
+        stopAt = start + Duration.ofSeconds(warmupSeconds + seconds).toNanos();
+        CountDownLatch done = new CountDownLatch(connections);
+        for (int connection = 0; connection < connections; connection++) {
+            send(request, done);
+        }
+
+        Thread.sleep(Duration.ofSeconds(warmupSeconds).toMillis());
+        recording = true;
+        long measuredFrom = System.nanoTime();
+        done.await();
+        double measuredSeconds = (System.nanoTime() - measuredFrom) / 1e9;
+
+        System.out.printf("connections:  %d%n", connections);
+        System.out.printf("requests:     %d (%d failed)%n", requests.sum(), errors.sum());
+        System.out.printf("throughput:   %.1f requests/s%n", requests.sum() / measuredSeconds);
+        System.out.printf("p50:          %.1f ms%n", percentile(0.50));
+        System.out.printf("p99:          %.1f ms%n", percentile(0.99));
+        System.out.printf("p99.9:        %.1f ms%n", percentile(0.999));
+    }
+
+    /**
+     * Sends the request and, when it completes, the next one, until the benchmark ends.
+     */
+    private void send(HttpRequest request, CountDownLatch done) {
+        if (System.nanoTime() >= stopAt) {
+            done.countDown();
+            return;
+        }
+        long sentAt = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenCompleteAsync((response, failure) -> {
+                    if (recording) {
+                        record(System.nanoTime() - sentAt, failure == null && response.statusCode() == 200);
+                    }
+                    send(request, done);
+                });
+    }
+
+    private void record(long nanos, boolean success) {
+        requests.increment();
+        if (!success) {
+            errors.increment();
+        }
+        latencies.incrementAndGet((int) Math.min(nanos / BUCKET_NANOS, BUCKETS - 1));
+    }
+
+    /**
+     * Returns the latency in milliseconds below which the given share of the requests completed.
+     */
+    private double percentile(double share) {
+        long total = requests.sum();
+        long threshold = (long) Math.ceil(total * share);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += latencies.get(bucket);
+            if (seen >= threshold && seen > 0) {
+                return (bucket + 1) * BUCKET_NANOS / 1e6;
+            }
+        }
+        return BUCKETS * BUCKET_NANOS / 1e6;
+    }
+}
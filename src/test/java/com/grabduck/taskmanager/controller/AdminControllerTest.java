@@ -0,0 +1,88 @@
+package com.grabduck.taskmanager.controller;
+
+import com.grabduck.taskmanager.config.TestJwtConfig;
+import com.grabduck.taskmanager.config.TestSecurityConfig;
+import com.grabduck.taskmanager.repository.UserRepository;
+import com.grabduck.taskmanager.repository.mongodb.TaskIndexManager;
+import com.grabduck.taskmanager.service.AdminService;
+import com.grabduck.taskmanager.util.CacheStats;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AdminController.class)
+@Import({TestSecurityConfig.class, TestJwtConfig.class})
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AdminService adminService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void getTaskIndexUsage_AsAdmin_ReturnsUsagePerIndex() throws Exception {
+        when(adminService.getTaskIndexUsage()).thenReturn(List.of(
+                new TaskIndexManager.TaskIndexUsage(
+                        "owner_id_status_due_date",
+                        new Document("owner_id", 1).append("status", 1).append("due_date", 1).append("_id", 1),
+                        42,
+                        new Date(),
+                        true,
+                        TaskIndexManager.State.READY
+                )
+        ));
+
+        mockMvc.perform(get("/api/v1/admin/indexes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("owner_id_status_due_date"))
+                .andExpect(jsonPath("$[0].key.status").value(1))
+                .andExpect(jsonPath("$[0].accesses").value(42))
+                .andExpect(jsonPath("$[0].managed").value(true))
+                .andExpect(jsonPath("$[0].state").value("READY"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void getCacheStats_AsAdmin_ReturnsStatsPerCache() throws Exception {
+        when(adminService.getCacheStats()).thenReturn(List.of(
+                new CacheStats("tasks", 10, 100, 30, 10, 2, 1, 10, 1.5, 30)
+        ));
+
+        mockMvc.perform(get("/api/v1/admin/caches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("tasks"))
+                .andExpect(jsonPath("$[0].hitRatio").value(0.75))
+                .andExpect(jsonPath("$[0].evictions").value(2))
+                .andExpect(jsonPath("$[0].averageLoadMillis").value(1.5))
+                .andExpect(jsonPath("$[0].coalescingRatio").value(0.75));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void getTaskIndexUsage_AsUser_ReturnsForbidden() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/indexes"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(adminService);
+    }
+}
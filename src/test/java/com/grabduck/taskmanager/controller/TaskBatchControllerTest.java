@@ -0,0 +1,103 @@
+package com.grabduck.taskmanager.controller;
+
+import com.grabduck.taskmanager.config.TestJwtConfig;
+import com.grabduck.taskmanager.config.TestSecurityConfig;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskOperation;
+import com.grabduck.taskmanager.domain.TaskOperationResult;
+import com.grabduck.taskmanager.domain.TaskPriority;
+import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.dto.TaskBatchRequest;
+import com.grabduck.taskmanager.exception.InvalidTaskException;
+import com.grabduck.taskmanager.repository.UserRepository;
+import com.grabduck.taskmanager.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TaskBatchController.class)
+@Import({TestSecurityConfig.class, TestJwtConfig.class})
+class TaskBatchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TaskService taskService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void applyBatch_MixedOperations_ReturnsResultPerOperation() throws Exception {
+        UUID ownerId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        Task created = new Task(UUID.randomUUID(), "New task", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("import"), ownerId, 0L);
+        when(taskService.applyBatch(anyList())).thenReturn(List.of(
+                TaskOperationResult.created(created),
+                TaskOperationResult.notFound(missingId)
+        ));
+
+        mockMvc.perform(post("/api/v1/tasks:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"operations": [
+                                  {"type": "CREATE", "task": {"name": "New task", "priority": "HIGH", "tags": ["import"]}},
+                                  {"type": "DELETE", "taskId": "%s"}
+                                ]}
+                                """.formatted(missingId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded", is(1)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.results", hasSize(2)))
+                .andExpect(jsonPath("$.results[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.results[0].task.name", is("New task")))
+                .andExpect(jsonPath("$.results[1].index", is(1)))
+                .andExpect(jsonPath("$.results[1].status", is("NOT_FOUND")))
+                .andExpect(jsonPath("$.results[1].task").doesNotExist());
+
+        verify(taskService).applyBatch(argThat(operations -> operations.size() == 2
+                && operations.get(0).type() == TaskOperation.Type.CREATE
+                && operations.get(1).equals(new TaskBatchRequest.Operation(TaskOperation.Type.DELETE, missingId, null, null, null))));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = "USER")
+    void applyBatch_InvalidBatch_ReturnsBadRequest() throws Exception {
+        when(taskService.applyBatch(anyList()))
+                .thenThrow(new InvalidTaskException("Batch must contain at least one operation"));
+
+        mockMvc.perform(post("/api/v1/tasks:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\": []}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Batch must contain at least one operation")));
+    }
+
+    @Test
+    void applyBatch_Unauthenticated_IsRejected() throws Exception {
+        mockMvc.perform(post("/api/v1/tasks:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\": []}"))
+                .andExpect(status().is4xxClientError());
+
+        verifyNoInteractions(taskService);
+    }
+}
@@ -6,7 +6,9 @@ import com.grabduck.taskmanager.config.TestJwtConfig;
 import com.grabduck.taskmanager.domain.*;
 import com.grabduck.taskmanager.dto.CreateTaskRequest;
 import com.grabduck.taskmanager.exception.InvalidTaskException;
+import com.grabduck.taskmanager.exception.ServiceBusyException;
 import com.grabduck.taskmanager.exception.TaskNotFoundException;
+import com.grabduck.taskmanager.exception.TaskVersionConflictException;
 import com.grabduck.taskmanager.repository.UserRepository;
 import com.grabduck.taskmanager.service.TaskService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,20 +17,38 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -95,13 +115,12 @@ class TaskControllerTest {
                 0
         );
         when(taskService.findTasks(
-                isNull(),
-                isNull(),
-                isNull(),
-                isNull(),
+                any(TaskFilter.class),
                 anyInt(),
                 anyInt(),
-                any(SortOption.class)
+                any(SortOption.class),
+                any(CountMode.class),
+                any(TaskView.class)
         )).thenReturn(defaultPage);
     }
 
@@ -113,7 +132,8 @@ class TaskControllerTest {
                 "Test Description",
                 LocalDateTime.now().plusDays(1),
                 TaskPriority.MEDIUM,
-                Set.of("test", "important")
+                Set.of("test", "important"),
+                "user"
         );
 
         when(taskService.createTask(any(CreateTaskRequest.class), any(String.class))).thenReturn(testTask);
@@ -139,7 +159,8 @@ class TaskControllerTest {
                 "Test Description",
                 LocalDateTime.now().plusDays(1),
                 TaskPriority.MEDIUM,
-                Set.of("test", "important")
+                Set.of("test", "important"),
+                "user"
         );
 
         doThrow(new InvalidTaskException("Task name cannot be empty"))
@@ -178,6 +199,17 @@ class TaskControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void getTask_DatabaseBusy_ReturnsServiceUnavailableWithRetryAfter() throws Exception {
+        when(taskService.getTaskById(testTaskId))
+                .thenThrow(new ServiceBusyException("Timed out", Duration.ofMillis(1500)));
+
+        mockMvc.perform(get("/api/v1/tasks/{taskId}", testTaskId))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+    }
+
     @Test
     @WithMockUser(username = "user", password = "password", roles = "USER")
     void updateTask_ExistingTask_ReturnsUpdatedTask() throws Exception {
@@ -207,6 +239,87 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.ownerId", is(testOwnerId.toString())));
     }
 
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void updateTask_StaleVersion_ReturnsConflict() throws Exception {
+        Task staleTask = testTask.withVersion(3L);
+        when(taskService.updateTask(eq(testTaskId), any(Task.class)))
+                .thenThrow(new TaskVersionConflictException(testTaskId, 3L));
+
+        mockMvc.perform(put("/api/v1/tasks/{taskId}", testTaskId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(staleTask)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void patchTask_StatusOnly_ReturnsPatchedTask() throws Exception {
+        Task patchedTask = new Task(testTaskId, testTask.name(), testTask.description(), testTask.dueDate(),
+                TaskStatus.COMPLETED, testTask.priority(), testTask.tags(), testOwnerId, 4L);
+        when(taskService.patchTask(eq(testTaskId), any(TaskPatch.class))).thenReturn(patchedTask);
+
+        mockMvc.perform(patch("/api/v1/tasks/{taskId}", testTaskId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.version", is(4)));
+
+        verify(taskService).patchTask(eq(testTaskId),
+                eq(new TaskPatch(TaskStatus.COMPLETED, null, null, null, null, null)));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void patchTask_InvalidPatch_ReturnsBadRequest() throws Exception {
+        when(taskService.patchTask(eq(testTaskId), any(TaskPatch.class)))
+                .thenThrow(new InvalidTaskException("Task patch must change at least one field"));
+
+        mockMvc.perform(patch("/api/v1/tasks/{taskId}", testTaskId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void updateTasks_ByTag_ReturnsAffectedCount() throws Exception {
+        when(taskService.updateTasks(any(TaskFilter.class), any(TaskPatch.class))).thenReturn(7L);
+
+        mockMvc.perform(patch("/api/v1/tasks")
+                        .param("tag", "sprint")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(7)));
+
+        verify(taskService).updateTasks(
+                eq(new TaskFilter(null, null, null, Set.of("sprint"), TagMatch.ALL)),
+                eq(new TaskPatch(TaskStatus.COMPLETED, null, null, null, null, null)));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void deleteTasks_ByStatus_ReturnsAffectedCount() throws Exception {
+        when(taskService.deleteTasks(any(TaskFilter.class))).thenReturn(3L);
+
+        mockMvc.perform(delete("/api/v1/tasks").param("status", "COMPLETED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(3)));
+
+        verify(taskService).deleteTasks(new TaskFilter(null, TaskStatus.COMPLETED, null, null, TagMatch.ALL));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void deleteTasks_NoFilter_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(delete("/api/v1/tasks"))
+                .andExpect(status().isBadRequest());
+
+        verify(taskService, never()).deleteTasks(any());
+    }
+
     @Test
     @WithMockUser(username = "user", password = "password", roles = "USER")
     void deleteTask_ExistingTask_ReturnsNoContent() throws Exception {
@@ -238,8 +351,10 @@ class TaskControllerTest {
         );
 
         when(taskService.findTasks(
-                anyString(), any(TaskStatus.class), any(TaskPriority.class), anyString(), eq(0), eq(10),
-                argThat(sort -> sort.field() == SortField.DUE_DATE && sort.direction() == SortDirection.ASC)
+                any(TaskFilter.class), eq(0), eq(10),
+                argThat(sort -> sort.field() == SortField.DUE_DATE && sort.direction() == SortDirection.ASC),
+                eq(CountMode.EXACT),
+                eq(TaskView.FULL)
         )).thenReturn(page);
 
         mockMvc.perform(get("/api/v1/tasks")
@@ -285,13 +400,15 @@ class TaskControllerTest {
         );
 
         when(taskService.findTasks(
-                eq("Filtered"),
-                eq(TaskStatus.NOT_STARTED),
-                eq(TaskPriority.HIGH),
-                isNull(),
+                argThat(filter -> "Filtered".equals(filter.search())
+                        && filter.status() == TaskStatus.NOT_STARTED
+                        && filter.priority() == TaskPriority.HIGH
+                        && filter.tags().isEmpty()),
                 eq(0),
                 eq(10),
-                any(SortOption.class)
+                any(SortOption.class),
+                any(CountMode.class),
+                any(TaskView.class)
         )).thenReturn(page);
 
         mockMvc.perform(get("/api/v1/tasks")
@@ -307,6 +424,272 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.content[0].priority", is("HIGH")));
     }
 
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_WithSeveralTags_PassesTagsAndMatchMode() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("tag", "backend", "bug")
+                        .param("tagMatch", "any"))
+                .andExpect(status().isOk());
+
+        verify(taskService).findTasks(
+                argThat(filter -> filter.tags().equals(Set.of("backend", "bug"))
+                        && filter.tagMatch() == TagMatch.ANY),
+                eq(0),
+                eq(20),
+                any(SortOption.class),
+                any(CountMode.class),
+                any(TaskView.class)
+        );
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_InvalidTagMatch_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("tag", "backend")
+                        .param("tagMatch", "some"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Unknown tag match mode")));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_CountNone_OmitsTotals() throws Exception {
+        when(taskService.findTasks(any(TaskFilter.class), anyInt(), anyInt(), any(SortOption.class), eq(CountMode.NONE), any(TaskView.class)))
+                .thenReturn(Page.of(List.of(testTask), null, 10, 0));
+
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("size", "10")
+                        .param("count", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_SummaryView_ReturnsTasksWithoutDescription() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("size", "10")
+                        .param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(testTaskId.toString()))
+                .andExpect(jsonPath("$.content[0].name").value("Test Task"))
+                .andExpect(jsonPath("$.content[0].tags", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist())
+                .andExpect(jsonPath("$.content[0].ownerId").doesNotExist())
+                .andExpect(jsonPath("$.totalElements").value(1));
+
+        verify(taskService).findTasks(any(TaskFilter.class), eq(0), eq(10), any(SortOption.class),
+                any(CountMode.class), eq(TaskView.SUMMARY));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void exportTasks_ValidFilter_StreamsTasksAsNdjson() throws Exception {
+        Task other = new Task(UUID.randomUUID(), "Other Task", null, null,
+                TaskStatus.COMPLETED, TaskPriority.LOW, Set.of(), testOwnerId);
+        when(taskService.streamTasks(any(TaskFilter.class))).thenReturn(Stream.of(testTask, other));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/tasks/export")
+                        .param("status", "COMPLETED"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals(testTaskId, objectMapper.readValue(lines.get(0), Task.class).id());
+        assertEquals("Other Task", objectMapper.readValue(lines.get(1), Task.class).name());
+        verify(taskService).streamTasks(argThat(filter -> filter.status() == TaskStatus.COMPLETED));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void exportTasks_GzipAccepted_CompressesResponse() throws Exception {
+        when(taskService.streamTasks(any(TaskFilter.class))).thenReturn(Stream.of(testTask));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/tasks/export")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] compressed = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(testTaskId, objectMapper.readValue(body.trim(), Task.class).id());
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void exportTasks_GzipAccepted_SendsTasksBeforeExportCompletes() throws Exception {
+        CompletableFuture<MvcResult> started = new CompletableFuture<>();
+        CompletableFuture<byte[]> sentEarly = new CompletableFuture<>();
+        when(taskService.streamTasks(any(TaskFilter.class))).thenReturn(IntStream.range(0, 1_500)
+                .mapToObj(i -> {
+                    if (i == 1_200) {
+                        sentEarly.complete(started.join().getResponse().getContentAsByteArray());
+                    }
+                    return testTask;
+                }));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/tasks/export")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.complete(result);
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(sentEarly.get(10, TimeUnit.SECONDS)))) {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                inflated.write(buffer, 0, read);
+            }
+        } catch (EOFException e) {
+            // The stream was cut while the export was still running
+        }
+        assertTrue(inflated.toString(StandardCharsets.UTF_8).lines().count() >= 1_000);
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void exportTasks_GzipRefused_SendsUncompressedResponse() throws Exception {
+        when(taskService.streamTasks(any(TaskFilter.class))).thenReturn(Stream.of(testTask));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/tasks/export")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, x-gzipped, *;q=0.5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(testTaskId, objectMapper.readValue(body.trim(), Task.class).id());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void importTasks_GzipNdjson_ReturnsReport() throws Exception {
+        String body = "{\"name\":\"Imported\",\"priority\":\"HIGH\",\"tags\":[],\"user\":\"user\"}\n";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> received = new ArrayList<>();
+        when(taskService.importTasks(any(InputStream.class))).thenAnswer(invocation -> {
+            InputStream input = invocation.getArgument(0);
+            received.add(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            return new TaskImportReport(1, 1, true, List.of(new TaskImportReport.ItemError(2, 2, "Task name cannot be null or empty")));
+        });
+
+        mockMvc.perform(post("/api/v1/tasks/import")
+                        .contentType("application/x-ndjson")
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(compressed.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.complete").value(true))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+
+        assertEquals(List.of(body), received);
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void importTasks_InvalidGzip_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/tasks/import")
+                        .contentType("application/x-ndjson")
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content("not gzip"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_InvalidView_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("view", "compact"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Invalid view parameter")));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_InvalidCount_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("count", "sometimes"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Invalid count parameter")));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_FullPage_ReturnsNextCursorForLastTask() throws Exception {
+        String body = mockMvc.perform(get("/api/v1/tasks")
+                        .param("size", "1")
+                        .param("sort", "name,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+
+        TaskCursor cursor = TaskCursor.decode(objectMapper.readTree(body).get("nextCursor").asText());
+        assertEquals(new SortOption(SortField.NAME, SortDirection.DESC), cursor.sortOption());
+        assertEquals("Test Task", cursor.lastValue());
+        assertEquals(testTaskId, cursor.lastId());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_WithCursor_UsesKeysetPagination() throws Exception {
+        TaskCursor cursor = TaskCursor.after(testTask, new SortOption(SortField.PRIORITY, SortDirection.ASC));
+        when(taskService.findTasksAfter(any(TaskFilter.class), eq(cursor), eq(10), any(CountMode.class), any(TaskView.class)))
+                .thenReturn(new Page<>(List.of(testTask), 1L, 1, 10, 0));
+
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("size", "10")
+                        .param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(taskService, never()).findTasks(any(), anyInt(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_InvalidCursor_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Invalid cursor parameter")));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "password", roles = "USER")
+    void findTasks_CursorWithPageNumber_ReturnsBadRequest() throws Exception {
+        String cursor = TaskCursor.after(testTask, SortOption.fromString(null)).encode();
+
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("page", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "user", password = "password", roles = "USER")
     void findTasks_InvalidSortField_ReturnsBadRequest() throws Exception {
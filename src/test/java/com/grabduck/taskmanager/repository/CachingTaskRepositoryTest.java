@@ -0,0 +1,152 @@
+package com.grabduck.taskmanager.repository;
+
+import com.grabduck.taskmanager.domain.*;
+import com.grabduck.taskmanager.util.CacheStats;
+import com.grabduck.taskmanager.util.TinyLfuCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingTaskRepositoryTest {
+    private static final SortOption SORT = new SortOption(SortField.DUE_DATE, SortDirection.ASC);
+
+    private InMemoryTaskRepository delegate;
+    private TinyLfuCache<UUID, Task> cache;
+    private TinyLfuCache<CachingTaskRepository.QueryKey, Page<Task>> queryCache;
+    private CachingTaskRepository repository;
+    private UUID ownerId;
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        delegate = spy(new InMemoryTaskRepository());
+        cache = new TinyLfuCache<>("tasks", 100, Duration.ofMinutes(1));
+        queryCache = new TinyLfuCache<>("task-queries", 100, Duration.ofMinutes(1));
+        repository = new CachingTaskRepository(delegate, cache, queryCache);
+        ownerId = new UUID(0, 1);
+        task = repository.save(new Task(UUID.randomUUID(), "Dashboard", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId));
+    }
+
+    @Test
+    void findById_whenCalledAgain_thenServedFromCacheWithOwnerCheck() {
+        assertEquals(Optional.of(task), repository.findById(task.id(), ownerId));
+        assertEquals(Optional.of(task), repository.findById(task.id(), ownerId));
+        assertTrue(repository.findById(task.id(), UUID.randomUUID()).isEmpty());
+
+        verify(delegate, times(1)).findById(task.id(), null);
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.loads());
+    }
+
+    @Test
+    void update_whenTaskCached_thenNextReadLoadsNewVersion() {
+        repository.findById(task.id(), ownerId);
+
+        Task updated = repository.update(withStatus(task, TaskStatus.COMPLETED)).orElseThrow();
+
+        assertEquals(Optional.of(updated), repository.findById(task.id(), ownerId));
+        verify(delegate, times(2)).findById(task.id(), null);
+    }
+
+    @Test
+    void deleteById_whenTaskCached_thenItIsNoLongerFound() {
+        repository.findById(task.id(), ownerId);
+
+        repository.deleteById(task.id(), ownerId);
+
+        assertTrue(repository.findById(task.id(), ownerId).isEmpty());
+    }
+
+    @Test
+    void updateTasks_whenOwnersTasksCached_thenTheyAreInvalidated() {
+        repository.findById(task.id(), ownerId);
+
+        repository.updateTasks(ownerId, TaskFilter.none(),
+                new TaskPatch(TaskStatus.IN_PROGRESS, null, null, null, null, null));
+
+        assertEquals(TaskStatus.IN_PROGRESS, repository.findById(task.id(), ownerId).orElseThrow().status());
+    }
+
+    @Test
+    void applyBatch_whenTaskPatched_thenItIsInvalidated() {
+        repository.findById(task.id(), ownerId);
+
+        repository.applyBatch(ownerId, List.of(TaskOperation.patch(task.id(),
+                new TaskPatch(TaskStatus.PENDING, null, null, null, null, null))));
+
+        assertEquals(TaskStatus.PENDING, repository.findById(task.id(), ownerId).orElseThrow().status());
+    }
+
+    @Test
+    void findTasks_whenCalledAgain_thenServedFromCache() {
+        Page<Task> first = findTasks(ownerId);
+
+        assertSame(first, findTasks(ownerId));
+        verify(delegate, times(1)).findTasks(ownerId, TaskFilter.none(), 0, 10, SORT, CountMode.EXACT, TaskView.FULL);
+        assertEquals(1, queryCache.stats().hits());
+    }
+
+    @Test
+    void findTasks_whenOwnerWrites_thenOnlyThatOwnersPagesAreReloaded() {
+        UUID otherOwnerId = new UUID(0, 2);
+        findTasks(ownerId);
+        Page<Task> otherPage = findTasks(otherOwnerId);
+
+        Task added = repository.save(new Task(UUID.randomUUID(), "Reports", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), ownerId));
+
+        assertTrue(findTasks(ownerId).elements().contains(added));
+        assertSame(otherPage, findTasks(otherOwnerId));
+        verify(delegate, times(2)).findTasks(ownerId, TaskFilter.none(), 0, 10, SORT, CountMode.EXACT, TaskView.FULL);
+    }
+
+    @Test
+    void findTasks_whenOwnerWritesToFullCache_thenNewPageIsCachedAgain() {
+        queryCache = new TinyLfuCache<>("task-queries", 1, Duration.ofMinutes(1));
+        repository = new CachingTaskRepository(delegate, cache, queryCache);
+        for (int i = 0; i < 5; i++) {
+            findTasks(ownerId);
+        }
+
+        repository.save(new Task(UUID.randomUUID(), "Reports", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), ownerId));
+        Page<Task> reloaded = findTasks(ownerId);
+
+        assertSame(reloaded, findTasks(ownerId));
+        verify(delegate, times(2)).findTasks(ownerId, TaskFilter.none(), 0, 10, SORT, CountMode.EXACT, TaskView.FULL);
+        assertEquals(0, queryCache.stats().rejections());
+    }
+
+    @Test
+    void evict_whenTaskWrittenElsewhere_thenTaskAndOwnersPagesAreReloaded() {
+        repository.findById(task.id(), ownerId);
+        findTasks(ownerId);
+
+        repository.evict(task.id(), null);
+
+        repository.findById(task.id(), ownerId);
+        findTasks(ownerId);
+        verify(delegate, times(2)).findById(task.id(), null);
+        verify(delegate, times(2)).findTasks(ownerId, TaskFilter.none(), 0, 10, SORT, CountMode.EXACT, TaskView.FULL);
+    }
+
+    private Page<Task> findTasks(UUID ownerId) {
+        return repository.findTasks(ownerId, TaskFilter.none(), 0, 10, SORT, CountMode.EXACT, TaskView.FULL);
+    }
+
+    private static Task withStatus(Task task, TaskStatus status) {
+        return new Task(task.id(), task.name(), task.description(), task.dueDate(), status,
+                task.priority(), task.tags(), task.ownerId(), task.version());
+    }
+}
@@ -0,0 +1,99 @@
+package com.grabduck.taskmanager.repository;
+
+import com.grabduck.taskmanager.config.UserCacheProperties;
+import com.grabduck.taskmanager.domain.User;
+import com.grabduck.taskmanager.domain.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingUserRepositoryTest {
+
+    private UserRepository delegate;
+    private CachingUserRepository repository;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(UserRepository.class);
+        repository = new CachingUserRepository(delegate, new UserCacheProperties());
+        user = new User(UUID.randomUUID(), "alice", "alice@example.com", "password", Set.of(UserRole.USER));
+    }
+
+    @Test
+    void findByUsername_whenCalledAgain_thenServedFromCacheUnderEveryKey() {
+        when(delegate.findByUsername("alice")).thenReturn(Optional.of(user));
+
+        assertEquals(Optional.of(user), repository.findByUsername("alice"));
+        assertEquals(Optional.of(user), repository.findByUsername("alice"));
+        assertEquals(Optional.of(user), repository.findById(user.id()));
+        assertTrue(repository.existsByEmail("alice@example.com"));
+
+        verify(delegate, times(1)).findByUsername("alice");
+        verify(delegate, never()).findById(any());
+        verify(delegate, never()).findByEmail(any());
+    }
+
+    @Test
+    void existsByUsername_whenUserMissing_thenMissIsCachedUntilSave() {
+        when(delegate.findByUsername("alice")).thenReturn(Optional.empty());
+
+        assertFalse(repository.existsByUsername("alice"));
+        assertFalse(repository.existsByUsername("alice"));
+        verify(delegate, times(1)).findByUsername("alice");
+
+        when(delegate.save(user)).thenReturn(user);
+        when(delegate.findByUsername("alice")).thenReturn(Optional.of(user));
+        repository.save(user);
+
+        assertTrue(repository.existsByUsername("alice"));
+        verify(delegate, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void save_whenUsernameChanges_thenOldUsernameIsInvalidated() {
+        when(delegate.findById(user.id())).thenReturn(Optional.of(user));
+        repository.findById(user.id());
+        User renamed = new User(user.id(), "alicia", user.email(), user.password(), user.roles());
+        when(delegate.save(renamed)).thenReturn(renamed);
+        when(delegate.findByUsername("alice")).thenReturn(Optional.empty());
+
+        repository.save(renamed);
+
+        assertTrue(repository.findByUsername("alice").isEmpty());
+        verify(delegate).findByUsername("alice");
+    }
+
+    @Test
+    void deleteById_whenUserCached_thenAllItsEntriesAreInvalidated() {
+        when(delegate.findByUsername("alice")).thenReturn(Optional.of(user));
+        repository.findByUsername("alice");
+        when(delegate.findByUsername("alice")).thenReturn(Optional.empty());
+
+        repository.deleteById(user.id());
+
+        assertTrue(repository.findByUsername("alice").isEmpty());
+        verify(delegate).deleteById(user.id());
+        verify(delegate, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void findByUsername_whenNegativeTtlIsZero_thenMissesAreNotCached() {
+        UserCacheProperties properties = new UserCacheProperties();
+        properties.setNegativeTtl(Duration.ZERO);
+        repository = new CachingUserRepository(delegate, properties);
+        when(delegate.findByUsername("nobody")).thenReturn(Optional.empty());
+
+        repository.findByUsername("nobody");
+        repository.findByUsername("nobody");
+
+        verify(delegate, times(2)).findByUsername("nobody");
+    }
+}
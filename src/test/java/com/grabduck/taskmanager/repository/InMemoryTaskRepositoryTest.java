@@ -0,0 +1,559 @@
+package com.grabduck.taskmanager.repository;
+
+import com.grabduck.taskmanager.domain.*;
+import com.grabduck.taskmanager.repository.inmemory.TaskOrdering;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryTaskRepositoryTest {
+
+    private static final SortOption DEFAULT_SORT = new SortOption(SortField.DUE_DATE, SortDirection.ASC);
+
+    private InMemoryTaskRepository repository;
+    private UUID ownerId;
+    private UUID otherOwnerId;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTaskRepository();
+        ownerId = UUID.randomUUID();
+        otherOwnerId = UUID.randomUUID();
+    }
+
+    @Test
+    void findById_whenOwnerDoesNotMatch_thenReturnsEmpty() {
+        Task task = repository.save(task("Write report", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+
+        assertTrue(repository.findById(task.id(), ownerId).isPresent());
+        assertTrue(repository.findById(task.id(), null).isPresent());
+        assertTrue(repository.findById(task.id(), otherOwnerId).isEmpty());
+    }
+
+    @Test
+    void deleteById_whenOwnerDoesNotMatch_thenTaskIsKept() {
+        Task task = repository.save(task("Write report", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+
+        assertEquals(0, repository.deleteById(task.id(), otherOwnerId));
+        assertTrue(repository.findById(task.id(), ownerId).isPresent());
+
+        assertEquals(1, repository.deleteById(task.id(), ownerId));
+        assertTrue(repository.findById(task.id(), null).isEmpty());
+        assertEquals(0, repository.deleteById(task.id(), ownerId));
+    }
+
+    @Test
+    void update_whenVersionMatches_thenTaskIsUpdatedAndVersionIncremented() {
+        Task task = repository.save(task("Write report", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+
+        Task first = repository.update(withStatus(task, TaskStatus.IN_PROGRESS, null)).orElseThrow();
+        Task second = repository.update(withStatus(first, TaskStatus.COMPLETED, first.version())).orElseThrow();
+
+        assertEquals(1L, first.version());
+        assertEquals(2L, second.version());
+        assertEquals(TaskStatus.COMPLETED, repository.findById(task.id(), ownerId).orElseThrow().status());
+    }
+
+    @Test
+    void update_whenVersionIsStale_thenTaskIsKept() {
+        Task task = repository.save(task("Write report", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+        Task updated = repository.update(withStatus(task, TaskStatus.IN_PROGRESS, 0L)).orElseThrow();
+
+        assertTrue(repository.update(withStatus(task, TaskStatus.CANCELLED, 0L)).isEmpty());
+        assertEquals(updated, repository.findById(task.id(), ownerId).orElseThrow());
+    }
+
+    @Test
+    void update_whenOwnerDoesNotMatch_thenTaskIsKept() {
+        Task task = repository.save(task("Write report", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+        Task foreign = new Task(task.id(), "Hijacked", null, null, TaskStatus.CANCELLED, TaskPriority.LOW, Set.of(), otherOwnerId);
+
+        assertTrue(repository.update(foreign).isEmpty());
+        assertEquals(task, repository.findById(task.id(), null).orElseThrow());
+    }
+
+    @Test
+    void patch_whenStatusAndTagsChange_thenFiltersSeeOnlyTheNewValues() {
+        Task task = repository.save(task("Write report", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs", "draft"), ownerId));
+
+        Task patched = repository.patch(task.id(), ownerId,
+                new TaskPatch(TaskStatus.IN_PROGRESS, null, null, Set.of("review"), Set.of("draft"), null)).orElseThrow();
+
+        assertEquals(TaskStatus.IN_PROGRESS, patched.status());
+        assertEquals(Set.of("docs", "review"), patched.tags());
+        assertEquals(task.name(), patched.name());
+        assertEquals(1L, patched.version());
+        assertEquals(0, repository.findTasks(ownerId, filter(null, TaskStatus.NOT_STARTED, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(0, repository.findTasks(ownerId, filter(null, null, null, "draft"), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(List.of(patched), repository.findTasks(ownerId, filter("report", TaskStatus.IN_PROGRESS, null, "review"), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).elements());
+    }
+
+    @Test
+    void patch_whenSortKeyChanges_thenTaskMovesInSortOrder() {
+        Task first = repository.save(task("A", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId));
+        Task second = repository.save(task("B", TaskStatus.NOT_STARTED, TaskPriority.MEDIUM, Set.of(), ownerId));
+        SortOption byPriority = new SortOption(SortField.PRIORITY, SortDirection.ASC);
+
+        repository.patch(first.id(), ownerId, new TaskPatch(null, TaskPriority.LOW, null, null, null, null));
+
+        List<Task> sorted = repository.findTasks(ownerId, TaskFilter.none(), 0, 10, byPriority, CountMode.EXACT, TaskView.FULL).elements();
+        assertEquals(List.of(second.id(), first.id()), sorted.stream().map(Task::id).toList());
+        assertEquals(TaskPriority.LOW, sorted.get(1).priority());
+    }
+
+    @Test
+    void patch_whenVersionIsStaleOrOwnerDiffers_thenTaskIsKept() {
+        Task task = repository.save(task("Write report", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+        repository.patch(task.id(), ownerId, new TaskPatch(TaskStatus.PENDING, null, null, null, null, 0L)).orElseThrow();
+
+        assertTrue(repository.patch(task.id(), ownerId, new TaskPatch(TaskStatus.COMPLETED, null, null, null, null, 0L)).isEmpty());
+        assertTrue(repository.patch(task.id(), otherOwnerId, new TaskPatch(TaskStatus.COMPLETED, null, null, null, null, null)).isEmpty());
+        assertEquals(TaskStatus.PENDING, repository.findById(task.id(), ownerId).orElseThrow().status());
+    }
+
+    @Test
+    void applyBatch_whenOperationsMixed_thenEachGetsItsOwnResult() {
+        Task kept = repository.save(task("Keep", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+        Task removed = repository.save(task("Remove", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+        Task foreign = repository.save(task("Foreign", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), otherOwnerId));
+        Task created = task("Created", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), ownerId);
+
+        List<TaskOperationResult> results = repository.applyBatch(ownerId, List.of(
+                TaskOperation.create(created),
+                TaskOperation.patch(kept.id(), new TaskPatch(TaskStatus.COMPLETED, null, null, null, null, null)),
+                TaskOperation.delete(removed.id()),
+                TaskOperation.delete(foreign.id()),
+                TaskOperation.patch(UUID.randomUUID(), new TaskPatch(TaskStatus.COMPLETED, null, null, null, null, 5L))
+        ));
+
+        assertEquals(List.of(TaskOperationResult.Status.CREATED, TaskOperationResult.Status.UPDATED,
+                        TaskOperationResult.Status.DELETED, TaskOperationResult.Status.NOT_FOUND,
+                        TaskOperationResult.Status.NOT_FOUND),
+                results.stream().map(TaskOperationResult::status).toList());
+        assertTrue(repository.findById(created.id(), ownerId).isPresent());
+        assertEquals(TaskStatus.COMPLETED, repository.findById(kept.id(), ownerId).orElseThrow().status());
+        assertTrue(repository.findById(removed.id(), ownerId).isEmpty());
+        assertTrue(repository.findById(foreign.id(), otherOwnerId).isPresent());
+    }
+
+    @Test
+    void applyBatch_whenVersionIsStale_thenReportsConflict() {
+        Task task = repository.save(task("Write report", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+        repository.update(task).orElseThrow();
+
+        List<TaskOperationResult> results = repository.applyBatch(ownerId, List.of(
+                TaskOperation.update(withStatus(task, TaskStatus.CANCELLED, 0L))));
+
+        assertEquals(TaskOperationResult.Status.CONFLICT, results.get(0).status());
+        assertEquals(TaskStatus.NOT_STARTED, repository.findById(task.id(), ownerId).orElseThrow().status());
+    }
+
+    @Test
+    void applyBatch_whenDeleteVersionIsStale_thenReportsConflictAndKeepsTask() {
+        Task task = repository.save(task("Write report", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+        repository.update(task).orElseThrow();
+
+        List<TaskOperationResult> results = repository.applyBatch(ownerId, List.of(
+                TaskOperation.delete(task.id(), 0L)));
+
+        assertEquals(TaskOperationResult.Status.CONFLICT, results.get(0).status());
+        assertTrue(repository.findById(task.id(), ownerId).isPresent());
+
+        results = repository.applyBatch(ownerId, List.of(TaskOperation.delete(task.id(), 1L)));
+
+        assertEquals(TaskOperationResult.Status.DELETED, results.get(0).status());
+        assertTrue(repository.findById(task.id(), ownerId).isEmpty());
+    }
+
+    @Test
+    void updateTasks_whenFilterGiven_thenOnlyMatchingTasksOfOwnerChange() {
+        Task tagged = repository.save(task("Tagged", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("sprint"), ownerId));
+        Task untagged = repository.save(task("Untagged", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId));
+        Task foreign = repository.save(task("Foreign", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("sprint"), otherOwnerId));
+
+        long updated = repository.updateTasks(ownerId, filter(null, null, null, "sprint"),
+                new TaskPatch(TaskStatus.COMPLETED, null, null, Set.of("done"), Set.of("sprint"), null));
+
+        assertEquals(1, updated);
+        Task stored = repository.findById(tagged.id(), ownerId).orElseThrow();
+        assertEquals(TaskStatus.COMPLETED, stored.status());
+        assertEquals(Set.of("done"), stored.tags());
+        assertEquals(1L, stored.version());
+        assertEquals(TaskStatus.NOT_STARTED, repository.findById(untagged.id(), ownerId).orElseThrow().status());
+        assertEquals(TaskStatus.NOT_STARTED, repository.findById(foreign.id(), otherOwnerId).orElseThrow().status());
+        assertEquals(List.of(stored), repository.findTasks(ownerId, filter(null, TaskStatus.COMPLETED, null, "done"),
+                0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).elements());
+    }
+
+    @Test
+    void deleteTasks_whenFilterGiven_thenOnlyMatchingTasksOfOwnerAreDeleted() {
+        Task done = repository.save(task("Done", TaskStatus.COMPLETED, TaskPriority.HIGH, Set.of(), ownerId));
+        Task open = repository.save(task("Open", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId));
+        Task foreign = repository.save(task("Foreign", TaskStatus.COMPLETED, TaskPriority.HIGH, Set.of(), otherOwnerId));
+
+        assertEquals(1, repository.deleteTasks(ownerId, filter(null, TaskStatus.COMPLETED, null, null)));
+
+        assertTrue(repository.findById(done.id(), null).isEmpty());
+        assertTrue(repository.findById(open.id(), null).isPresent());
+        assertTrue(repository.findById(foreign.id(), null).isPresent());
+        assertEquals(0, repository.deleteTasks(UUID.randomUUID(), TaskFilter.none()));
+    }
+
+    @Test
+    void streamTasks_whenMoreTasksThanOneChunk_thenStreamsEveryMatchOfOwner() {
+        Set<UUID> expected = new HashSet<>();
+        for (int i = 0; i < 600; i++) {
+            TaskStatus status = i % 2 == 0 ? TaskStatus.COMPLETED : TaskStatus.NOT_STARTED;
+            Task saved = repository.save(task("Task " + i, status, TaskPriority.HIGH, Set.of(), ownerId));
+            if (status == TaskStatus.COMPLETED) {
+                expected.add(saved.id());
+            }
+        }
+        repository.save(task("Foreign", TaskStatus.COMPLETED, TaskPriority.HIGH, Set.of(), otherOwnerId));
+
+        List<UUID> streamed;
+        try (Stream<Task> tasks = repository.streamTasks(ownerId, filter(null, TaskStatus.COMPLETED, null, null))) {
+            streamed = tasks.map(Task::id).toList();
+        }
+
+        assertEquals(expected.size(), streamed.size());
+        assertEquals(expected, Set.copyOf(streamed));
+    }
+
+    @Test
+    void streamTasks_whenTaskChangesWhileStreaming_thenNoNonMatchingTaskIsReturned() {
+        List<Task> saved = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            saved.add(repository.save(task("Task " + i, TaskStatus.COMPLETED, TaskPriority.HIGH, Set.of(), ownerId)));
+        }
+
+        try (Stream<Task> tasks = repository.streamTasks(ownerId, filter(null, TaskStatus.COMPLETED, null, null))) {
+            Iterator<Task> iterator = tasks.iterator();
+            assertTrue(iterator.hasNext());
+            // Reopen every task, and reuse the ordinal of the last one for another open task
+            saved.forEach(task -> repository.save(withStatus(task, TaskStatus.NOT_STARTED, null)));
+            repository.deleteById(saved.get(saved.size() - 1).id(), ownerId);
+            repository.save(task("Reused", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId));
+
+            while (iterator.hasNext()) {
+                assertEquals(TaskStatus.COMPLETED, iterator.next().status());
+            }
+        }
+    }
+
+    @Test
+    void findTasks_whenOwnerProvided_thenReturnsOnlyOwnersTasks() {
+        repository.save(task("Mine", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), ownerId));
+        repository.save(task("Theirs", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("docs"), otherOwnerId));
+
+        Page<Task> result = repository.findTasks(ownerId, filter(null, null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL);
+
+        assertEquals(1, result.totalElements());
+        assertEquals("Mine", result.elements().get(0).name());
+        assertEquals(2, repository.findTasks(null, filter(null, null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void findTasks_whenFiltersCombined_thenAllFiltersApply() {
+        repository.save(task("Fix login bug", TaskStatus.IN_PROGRESS, TaskPriority.URGENT, Set.of("bug", "backend"), ownerId));
+        repository.save(task("Fix layout bug", TaskStatus.IN_PROGRESS, TaskPriority.LOW, Set.of("bug", "frontend"), ownerId));
+        repository.save(task("Plan release", TaskStatus.NOT_STARTED, TaskPriority.URGENT, Set.of("backend"), ownerId));
+
+        Page<Task> result = repository.findTasks(ownerId, filter("FIX", TaskStatus.IN_PROGRESS, TaskPriority.URGENT, "backend"), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL);
+
+        assertEquals(1, result.totalElements());
+        assertEquals("Fix login bug", result.elements().get(0).name());
+    }
+
+    @Test
+    void findTasks_whenSearching_thenMatchesNameAndDescriptionIgnoringCase() {
+        repository.save(new Task(UUID.randomUUID(), "Deploy API", "Roll out the Gateway", null,
+                TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId));
+        repository.save(new Task(UUID.randomUUID(), "Write docs", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId));
+
+        assertEquals(1, repository.findTasks(ownerId, filter("gATEway", null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(1, repository.findTasks(ownerId, filter("ploy a", null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(2, repository.findTasks(ownerId, filter("e", null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(0, repository.findTasks(ownerId, filter("gateways", null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void findTasks_whenSearchTermSpansAllTrigramsButNotSubstring_thenNoMatch() {
+        repository.save(new Task(UUID.randomUUID(), "abcd bcde", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId));
+
+        assertEquals(0, repository.findTasks(ownerId, filter("abcde", null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void save_whenTaskIsUpdated_thenIndexesFollowNewValues() {
+        Task task = repository.save(task("Review", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of("old"), ownerId));
+        repository.save(new Task(task.id(), task.name(), task.description(), task.dueDate(),
+                TaskStatus.COMPLETED, TaskPriority.HIGH, Set.of("new"), ownerId));
+
+        assertEquals(0, repository.findTasks(ownerId, filter(null, TaskStatus.NOT_STARTED, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(0, repository.findTasks(ownerId, filter(null, null, null, "old"), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(1, repository.findTasks(ownerId, filter(null, TaskStatus.COMPLETED, TaskPriority.HIGH, "new"), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(1, repository.findTasks(ownerId, filter("review", null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void deleteById_whenTaskIsDeleted_thenSearchNoLongerFindsIt() {
+        Task task = repository.save(task("Quarterly report", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), ownerId));
+
+        repository.deleteById(task.id(), ownerId);
+
+        assertEquals(0, repository.findTasks(ownerId, filter("quarterly", null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void save_whenOwnerChanges_thenTaskMovesToNewOwner() {
+        Task task = repository.save(task("Review", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of("docs"), ownerId));
+        repository.save(new Task(task.id(), task.name(), task.description(), task.dueDate(),
+                task.status(), task.priority(), task.tags(), otherOwnerId));
+
+        assertTrue(repository.findById(task.id(), ownerId).isEmpty());
+        assertTrue(repository.findById(task.id(), otherOwnerId).isPresent());
+        assertEquals(0, repository.findTasks(ownerId, filter(null, null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void save_whenCalledConcurrently_thenNoTaskIsLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                UUID owner = i % 2 == 0 ? ownerId : otherOwnerId;
+                futures.add(executor.submit(() -> repository.save(
+                        task("Task", TaskStatus.NOT_STARTED, TaskPriority.MEDIUM, Set.of("load"), owner))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1000, repository.findTasks(ownerId, filter(null, null, null, "load"), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(1000, repository.findTasks(otherOwnerId, filter(null, null, null, "load"), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void patch_whenRacingWithUpdateTasks_thenNoChangeOrVersionIsLost() throws Exception {
+        Task saved = repository.save(task("Task", TaskStatus.NOT_STARTED, TaskPriority.MEDIUM, Set.of(), ownerId));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                boolean byId = i % 2 == 0;
+                TaskPatch patch = new TaskPatch(null, null, null, Set.of("tag-" + i), null, null);
+                futures.add(executor.submit(() -> byId
+                        ? repository.patch(saved.id(), ownerId, patch)
+                        : repository.updateTasks(ownerId, TaskFilter.none(), patch)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Task result = repository.findById(saved.id(), ownerId).orElseThrow();
+        assertEquals(2000, result.tags().size());
+        assertEquals(2000L, result.version());
+    }
+
+    @Test
+    void findTasks_whenSeveralTagsWithAllMatch_thenTaskNeedsEveryTag() {
+        repository.save(task("Both", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of("api", "bug"), ownerId));
+        repository.save(task("Api only", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of("api"), ownerId));
+        repository.save(task("Neither", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of("ui"), ownerId));
+
+        TaskFilter all = new TaskFilter(null, null, null, Set.of("api", "bug"), TagMatch.ALL);
+        Page<Task> result = repository.findTasks(ownerId, all, 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL);
+
+        assertEquals(1, result.totalElements());
+        assertEquals("Both", result.elements().get(0).name());
+    }
+
+    @Test
+    void findTasks_whenSeveralTagsWithAnyMatch_thenTaskNeedsOneTag() {
+        repository.save(task("Both", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of("api", "bug"), ownerId));
+        repository.save(task("Api only", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of("api"), ownerId));
+        repository.save(task("Neither", TaskStatus.IN_PROGRESS, TaskPriority.LOW, Set.of("ui"), ownerId));
+
+        TaskFilter any = new TaskFilter(null, TaskStatus.NOT_STARTED, null, Set.of("bug", "api", "unknown"), TagMatch.ANY);
+
+        assertEquals(2, repository.findTasks(ownerId, any, 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void save_whenDeletedOrdinalIsReused_thenOldIndexEntriesDoNotLeak() {
+        Task first = repository.save(task("First", TaskStatus.COMPLETED, TaskPriority.LOW, Set.of("old"), ownerId));
+        repository.deleteById(first.id(), ownerId);
+        repository.save(task("Second", TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of("new"), ownerId));
+
+        assertEquals(0, repository.findTasks(ownerId, filter(null, TaskStatus.COMPLETED, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(0, repository.findTasks(ownerId, filter("first", null, null, null), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+        assertEquals(1, repository.findTasks(ownerId, filter("second", TaskStatus.NOT_STARTED, TaskPriority.HIGH, "new"), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void findTasks_whenPagingThroughEverySortOption_thenPagesFollowFullSort() {
+        Random random = new Random(42);
+        List<Task> saved = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime dueDate = i % 10 == 0 ? null : LocalDateTime.of(2025, 1, 1, 0, 0).plusDays(random.nextInt(30));
+            saved.add(repository.save(new Task(UUID.randomUUID(), "Task " + random.nextInt(50), null, dueDate,
+                    TaskStatus.values()[random.nextInt(TaskStatus.values().length)],
+                    TaskPriority.values()[random.nextInt(TaskPriority.values().length)],
+                    i % 7 == 0 ? Set.of("rare") : Set.of("common"), ownerId)));
+        }
+
+        for (SortField field : SortField.values()) {
+            for (SortDirection direction : SortDirection.values()) {
+                SortOption sortOption = new SortOption(field, direction);
+                // "common" is served by walking the sorted order, "rare" by the bounded heap
+                for (String tag : List.of("common", "rare")) {
+                    Comparator<Task> order = TaskOrdering.of(sortOption);
+                    List<Task> expected = saved.stream()
+                            .filter(task -> task.tags().contains(tag))
+                            .sorted(order)
+                            .toList();
+
+                    List<Task> actual = new ArrayList<>();
+                    for (int page = 0; page * 20 < expected.size() + 20; page++) {
+                        Page<Task> result = repository.findTasks(ownerId, filter(null, null, null, tag), page, 20, sortOption, CountMode.EXACT, TaskView.FULL);
+                        assertEquals(expected.size(), result.totalElements());
+                        actual.addAll(result.elements());
+                    }
+                    assertEquals(expected, actual, "order for " + sortOption + " and tag " + tag);
+                }
+            }
+        }
+    }
+
+    @Test
+    void findTasksAfter_whenFollowingCursors_thenVisitsEveryMatchOnceInOrder() {
+        Random random = new Random(7);
+        List<Task> saved = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime dueDate = i % 10 == 0 ? null : LocalDateTime.of(2025, 1, 1, 0, 0).plusDays(random.nextInt(30));
+            saved.add(repository.save(new Task(UUID.randomUUID(), "Task " + random.nextInt(20), null, dueDate,
+                    TaskStatus.values()[random.nextInt(TaskStatus.values().length)],
+                    TaskPriority.values()[random.nextInt(TaskPriority.values().length)],
+                    i % 9 == 0 ? Set.of("rare") : Set.of("common"), ownerId)));
+        }
+
+        for (SortField field : SortField.values()) {
+            for (SortDirection direction : SortDirection.values()) {
+                SortOption sortOption = new SortOption(field, direction);
+                for (String tag : List.of("common", "rare")) {
+                    List<Task> expected = saved.stream()
+                            .filter(task -> task.tags().contains(tag))
+                            .sorted(TaskOrdering.of(sortOption))
+                            .toList();
+
+                    Page<Task> result = repository.findTasks(ownerId, filter(null, null, null, tag), 0, 15, sortOption, CountMode.EXACT, TaskView.FULL);
+                    List<Task> actual = new ArrayList<>(result.elements());
+                    while (result.elements().size() == 15) {
+                        TaskCursor cursor = TaskCursor.after(actual.get(actual.size() - 1), sortOption);
+                        result = repository.findTasksAfter(ownerId, filter(null, null, null, tag), TaskCursor.decode(cursor.encode()), 15, CountMode.EXACT, TaskView.FULL);
+                        assertEquals(expected.size(), result.totalElements());
+                        actual.addAll(result.elements());
+                    }
+                    assertEquals(expected, actual, "order for " + sortOption + " and tag " + tag);
+                }
+            }
+        }
+    }
+
+    @Test
+    void findTasksAfter_whenTaskInsertedBeforeCursor_thenNextPageDoesNotShift() {
+        SortOption byName = new SortOption(SortField.NAME, SortDirection.ASC);
+        for (String name : List.of("b", "c", "d", "e")) {
+            repository.save(task(name, TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), ownerId));
+        }
+        Page<Task> first = repository.findTasks(ownerId, TaskFilter.none(), 0, 2, byName, CountMode.EXACT, TaskView.FULL);
+        repository.save(task("a", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), ownerId));
+
+        Page<Task> second = repository.findTasksAfter(ownerId, TaskFilter.none(),
+                TaskCursor.after(first.elements().get(1), byName), 2, CountMode.EXACT, TaskView.FULL);
+
+        assertEquals(List.of("d", "e"), second.elements().stream().map(Task::name).toList());
+    }
+
+    @Test
+    void findTasks_whenDueDateMissing_thenSortedLastAscendingAndFirstDescending() {
+        repository.save(new Task(UUID.randomUUID(), "No date", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), ownerId));
+        repository.save(new Task(UUID.randomUUID(), "Dated", null, LocalDateTime.now(),
+                TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), ownerId));
+
+        Page<Task> ascending = repository.findTasks(ownerId, TaskFilter.none(), 0, 10, DEFAULT_SORT, CountMode.EXACT, TaskView.FULL);
+        Page<Task> descending = repository.findTasks(ownerId, TaskFilter.none(), 0, 10,
+                new SortOption(SortField.DUE_DATE, SortDirection.DESC), CountMode.EXACT, TaskView.FULL);
+
+        assertEquals("No date", ascending.elements().get(1).name());
+        assertEquals("No date", descending.elements().get(0).name());
+    }
+
+    @Test
+    void findTasks_whenCountModeNone_thenPageHasNoTotals() {
+        repository.save(task("Counted", TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), ownerId));
+
+        Page<Task> uncounted = repository.findTasks(ownerId, TaskFilter.none(), 0, 10, DEFAULT_SORT, CountMode.NONE, TaskView.FULL);
+        Page<Task> estimated = repository.findTasks(ownerId, TaskFilter.none(), 0, 10, DEFAULT_SORT, CountMode.ESTIMATE, TaskView.FULL);
+
+        assertEquals(1, uncounted.elements().size());
+        assertNull(uncounted.totalElements());
+        assertNull(uncounted.totalPages());
+        assertEquals(1, estimated.totalElements());
+        assertEquals(1, estimated.totalPages());
+    }
+
+    @Test
+    void findTasks_whenNoOwnerGiven_thenPagesAreMergedAcrossOwners() {
+        for (int i = 0; i < 5; i++) {
+            repository.save(new Task(UUID.randomUUID(), "Task " + i, null, null,
+                    TaskStatus.NOT_STARTED, TaskPriority.LOW, Set.of(), i % 2 == 0 ? ownerId : otherOwnerId));
+        }
+        SortOption byName = new SortOption(SortField.NAME, SortDirection.ASC);
+
+        Page<Task> second = repository.findTasks(null, TaskFilter.none(), 1, 2, byName, CountMode.EXACT, TaskView.FULL);
+
+        assertEquals(5, second.totalElements());
+        assertEquals(3, second.totalPages());
+        assertEquals(List.of("Task 2", "Task 3"), second.elements().stream().map(Task::name).toList());
+    }
+
+    private static TaskFilter filter(String search, TaskStatus status, TaskPriority priority, String tag) {
+        return new TaskFilter(search, status, priority, tag != null ? Set.of(tag) : Set.of(), TagMatch.ALL);
+    }
+
+    private static Task task(String name, TaskStatus status, TaskPriority priority, Set<String> tags, UUID ownerId) {
+        return new Task(UUID.randomUUID(), name, name + " description", LocalDateTime.now().plusDays(1),
+                status, priority, tags, ownerId);
+    }
+
+    private static Task withStatus(Task task, TaskStatus status, Long version) {
+        return new Task(task.id(), task.name(), task.description(), task.dueDate(), status,
+                task.priority(), task.tags(), task.ownerId(), version);
+    }
+}
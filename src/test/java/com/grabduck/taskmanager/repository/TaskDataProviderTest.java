@@ -0,0 +1,74 @@
+package com.grabduck.taskmanager.repository;
+
+import com.grabduck.taskmanager.config.SeedProperties;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskDataProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void forEachBatch_whenReadingBundledTasks_thenAllTasksParsed() {
+        List<Task> tasks = new ArrayList<>();
+
+        long count = provider("classpath:tasks.json").forEachBatch(100, tasks::addAll);
+
+        assertTrue(count > 0);
+        assertEquals(count, tasks.size());
+        assertTrue(tasks.stream().allMatch(task -> task.ownerId() != null && task.dueDate() != null));
+    }
+
+    @Test
+    void forEachBatch_whenMoreTasksThanBatchSize_thenBatchesAreFullExceptLast() throws IOException {
+        Path file = writeTasks(7);
+        List<Integer> batchSizes = new ArrayList<>();
+
+        long count = provider(file.toUri().toString()).forEachBatch(3, batch -> batchSizes.add(batch.size()));
+
+        assertEquals(7, count);
+        assertEquals(List.of(3, 3, 1), batchSizes);
+    }
+
+    @Test
+    void forEachBatch_whenNotAnArray_thenFails() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("tasks.json"), "{\"name\": \"not a list\"}");
+
+        assertThrows(UncheckedIOException.class,
+                () -> provider(file.toUri().toString()).forEachBatch(3, batch -> { }));
+    }
+
+    private Path writeTasks(int count) throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("""
+                    {"id": "%s", "name": "Task %d", "description": null, "dueDate": [2025,2,18,20,44,6],
+                     "status": "%s", "priority": "LOW", "tags": ["seed"], "ownerId": "%s"}
+                    """.formatted(UUID.randomUUID(), i, TaskStatus.NOT_STARTED, UUID.randomUUID()));
+        }
+        return Files.writeString(tempDir.resolve("tasks.json"), json.append(']'));
+    }
+
+    private static TaskDataProvider provider(String location) {
+        SeedProperties seedProperties = new SeedProperties();
+        seedProperties.setLocation(location);
+        return new TaskDataProvider(new DefaultResourceLoader(), seedProperties);
+    }
+}
@@ -0,0 +1,109 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.config.CacheInvalidationProperties;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskPriority;
+import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.domain.User;
+import com.grabduck.taskmanager.domain.UserRole;
+import com.grabduck.taskmanager.repository.CachingTaskRepository;
+import com.grabduck.taskmanager.repository.CachingUserRepository;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Writes to a single-node replica set and checks that the changes reach the caches.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ChangeStreamCacheInvalidatorTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:6.0");
+
+    private MongoTemplate mongoTemplate;
+    private CachingTaskRepository taskRepository;
+    private CachingUserRepository userRepository;
+    private ChangeStreamCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(MongoClients.create(MONGO.getReplicaSetUrl()), "invalidation");
+        taskRepository = mock(CachingTaskRepository.class);
+        userRepository = mock(CachingUserRepository.class);
+        CacheInvalidationProperties properties = new CacheInvalidationProperties();
+        properties.setEnabled(true);
+        properties.setMaxAwaitTime(Duration.ofMillis(100));
+        invalidator = new ChangeStreamCacheInvalidator(mongoTemplate, taskRepository, userRepository,
+                new TaskCountCache(), properties);
+        invalidator.start();
+        // The caches are cleared once the stream is open
+        verify(taskRepository, timeout(10_000)).evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        invalidator.stop();
+    }
+
+    @Test
+    void start_whenTaskWrittenElsewhere_thenTaskIsEvictedForItsOwner() {
+        UUID ownerId = UUID.randomUUID();
+        Task task = new Task(UUID.randomUUID(), "Dashboard", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId);
+
+        mongoTemplate.insert(new TaskDocument(task));
+
+        verify(taskRepository, timeout(10_000)).evict(task.id(), ownerId);
+    }
+
+    @Test
+    void start_whenTaskDeletedElsewhere_thenTaskIsEvictedForAllOwners() {
+        Task task = new Task(UUID.randomUUID(), "Dashboard", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), UUID.randomUUID());
+        mongoTemplate.insert(new TaskDocument(task));
+
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(task.id().toString())), TaskDocument.class);
+
+        verify(taskRepository, timeout(10_000)).evict(eq(task.id()), isNull());
+    }
+
+    @Test
+    void start_whenTaskHasMalformedOwner_thenCachesClearedAndStreamContinues() {
+        mongoTemplate.getCollection("tasks").insertOne(new Document("_id", UUID.randomUUID().toString())
+                .append("name", "Legacy")
+                .append("owner_id", "not-a-uuid"));
+
+        verify(taskRepository, timeout(10_000).times(2)).evictAll();
+
+        UUID ownerId = UUID.randomUUID();
+        Task task = new Task(UUID.randomUUID(), "Dashboard", null, null,
+                TaskStatus.NOT_STARTED, TaskPriority.HIGH, Set.of(), ownerId);
+        mongoTemplate.insert(new TaskDocument(task));
+
+        verify(taskRepository, timeout(10_000)).evict(task.id(), ownerId);
+    }
+
+    @Test
+    void start_whenUserWrittenElsewhere_thenUserIsEvictedByAllKeys() {
+        User user = new User(UUID.randomUUID(), "alice", "alice@example.com", "secret", Set.of(UserRole.USER));
+
+        mongoTemplate.insert(new UserDocument(user));
+
+        verify(userRepository, timeout(10_000)).evict(user.id(), user);
+    }
+}
@@ -0,0 +1,71 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskCountCacheTest {
+
+    private final TaskCountCache cache = new TaskCountCache();
+
+    @Test
+    void get_whenCalledTwice_thenCountsOnce() {
+        AtomicInteger counted = new AtomicInteger();
+
+        assertEquals(5, cache.get("owner", TaskFilter.none(), () -> { counted.incrementAndGet(); return 5; }));
+        assertEquals(5, cache.get("owner", TaskFilter.none(), () -> { counted.incrementAndGet(); return 7; }));
+
+        assertEquals(1, counted.get());
+    }
+
+    @Test
+    void get_whenFiltersDiffer_thenCachedSeparately() {
+        TaskFilter completed = new TaskFilter(null, TaskStatus.COMPLETED, null, null, null);
+        cache.counts("owner").put(TaskFilter.none(), 5);
+        cache.counts("owner").put(completed, 2);
+
+        assertEquals(Optional.of(5L), cache.peek("owner", TaskFilter.none()));
+        assertEquals(Optional.of(2L), cache.peek("owner", completed));
+        assertEquals(Optional.empty(), cache.peek("other", completed));
+    }
+
+    @Test
+    void evict_whenOwnerWrites_thenOwnerAndAllOwnerCountsDropped() {
+        cache.counts("owner").put(TaskFilter.none(), 5);
+        cache.counts("other").put(TaskFilter.none(), 3);
+        cache.counts(null).put(TaskFilter.none(), 8);
+
+        cache.evict("owner");
+
+        assertEquals(Optional.empty(), cache.peek("owner", TaskFilter.none()));
+        assertEquals(Optional.empty(), cache.peek(null, TaskFilter.none()));
+        assertEquals(Optional.of(3L), cache.peek("other", TaskFilter.none()));
+    }
+
+    @Test
+    void evict_whenCountInFlight_thenStaleCountNotServed() {
+        long stale = cache.get("owner", TaskFilter.none(), () -> {
+            cache.evict("owner");
+            return 5;
+        });
+
+        assertEquals(5, stale);
+        assertEquals(Optional.empty(), cache.peek("owner", TaskFilter.none()));
+    }
+
+    @Test
+    void countsPut_whenOwnerEvictedAfterCountsTaken_thenStaleCountNotServed() {
+        TaskCountCache.OwnerCounts counts = cache.counts("owner");
+        // The count is computed here; a write evicts the owner before it is stored
+        cache.evict("owner");
+
+        counts.put(TaskFilter.none(), 5);
+
+        assertEquals(Optional.empty(), cache.peek("owner", TaskFilter.none()));
+    }
+}
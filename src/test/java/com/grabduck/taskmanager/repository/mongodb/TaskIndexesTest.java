@@ -0,0 +1,57 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.domain.SortField;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskIndexesTest {
+
+    @Test
+    void all_whenFilteringAndSorting_thenEveryCombinationHasIndexInEqualitySortOrder() {
+        Collection<Index> indexes = TaskIndexes.all().values();
+        List<String> filters = new ArrayList<>();
+        filters.add(null);
+        filters.addAll(TaskIndexes.FILTER_FIELDS);
+
+        for (String filter : filters) {
+            for (SortField field : SortField.values()) {
+                String sortField = TaskIndexes.documentField(field);
+                List<String> expected = new ArrayList<>(List.of("owner_id"));
+                if (filter != null && !filter.equals(sortField)) {
+                    expected.add(filter);
+                }
+                expected.addAll(List.of(sortField, "_id"));
+
+                assertTrue(indexes.stream().anyMatch(index -> keys(index).equals(expected)),
+                        () -> "no index on " + expected);
+            }
+        }
+    }
+
+    @Test
+    void all_whenSearching_thenOwnerAndTrigramIndexPresent() {
+        assertEquals(List.of("owner_id", "search_grams"), keys(TaskIndexes.all().get("owner_search_grams")));
+    }
+
+    @Test
+    void all_whenBuilt_thenNamesMatchKeysAndBuildInBackground() {
+        TaskIndexes.all().forEach((name, index) -> {
+            Document options = index.getIndexOptions();
+            assertEquals(name, options.getString("name"));
+            assertEquals(true, options.get("background"));
+        });
+        assertEquals(TaskIndexes.all().size(),
+                TaskIndexes.all().values().stream().map(TaskIndexesTest::keys).distinct().count());
+    }
+
+    private static List<String> keys(Index index) {
+        return new ArrayList<>(index.getIndexKeys().keySet());
+    }
+}
@@ -0,0 +1,178 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.domain.SortDirection;
+import com.grabduck.taskmanager.domain.SortField;
+import com.grabduck.taskmanager.domain.SortOption;
+import com.grabduck.taskmanager.domain.TagMatch;
+import com.grabduck.taskmanager.domain.Task;
+import com.grabduck.taskmanager.domain.TaskCursor;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskPriority;
+import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.domain.TaskView;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every filter combination of the task list through {@code explain()} against a real
+ * MongoDB and checks that the winning plan scans an index instead of the collection.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TaskQueryPlannerExplainTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:6.0");
+
+    private static final String OWNER_ID = UUID.randomUUID().toString();
+
+    private static MongoTemplate mongoTemplate;
+    private static QueryMapper queryMapper;
+    private static MongoPersistentEntity<?> entity;
+
+    @BeforeAll
+    static void setUp() {
+        mongoTemplate = new MongoTemplate(MongoClients.create(MONGO.getReplicaSetUrl()), "explain");
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        entity = mappingContext.getRequiredPersistentEntity(TaskDocument.class);
+        queryMapper = new QueryMapper(mongoTemplate.getConverter());
+
+        IndexOperations indexOps = mongoTemplate.indexOps(TaskDocument.class);
+        TaskIndexes.all().values().forEach(indexOps::ensureIndex);
+
+        List<TaskDocument> documents = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String ownerId = i % 10 == 0 ? OWNER_ID : UUID.randomUUID().toString();
+            documents.add(new TaskDocument(new Task(
+                    UUID.randomUUID(),
+                    "Quarterly report " + i,
+                    "Review numbers for batch " + i,
+                    LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i),
+                    TaskStatus.values()[i % TaskStatus.values().length],
+                    TaskPriority.values()[i % TaskPriority.values().length],
+                    Set.of("tag" + (i % 7), "tag" + (i % 3)),
+                    UUID.fromString(ownerId)
+            )));
+        }
+        mongoTemplate.insertAll(documents);
+    }
+
+    static Stream<Arguments> filters() {
+        return Stream.of(
+                Arguments.of("owner only", TaskFilter.none()),
+                Arguments.of("status", new TaskFilter(null, TaskStatus.IN_PROGRESS, null, null, null)),
+                Arguments.of("priority", new TaskFilter(null, null, TaskPriority.HIGH, null, null)),
+                Arguments.of("one tag", new TaskFilter(null, null, null, Set.of("tag1"), null)),
+                Arguments.of("all tags", new TaskFilter(null, null, null, Set.of("tag1", "tag2"), TagMatch.ALL)),
+                Arguments.of("any tag", new TaskFilter(null, null, null, Set.of("tag1", "tag2"), TagMatch.ANY)),
+                Arguments.of("status, priority and tag",
+                        new TaskFilter(null, TaskStatus.PENDING, TaskPriority.LOW, Set.of("tag4"), null)),
+                Arguments.of("search", new TaskFilter("report 12", null, null, null, null)),
+                Arguments.of("short search", new TaskFilter("12", null, null, null, null)),
+                Arguments.of("search and status", new TaskFilter("numbers", TaskStatus.COMPLETED, null, null, null))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("filters")
+    void page_whenOwnerScoped_thenServedByIndexScan(String name, TaskFilter filter) {
+        for (SortField field : SortField.values()) {
+            Query query = TaskQueryPlanner.page(OWNER_ID, filter, true,
+                    PageRequest.of(2, 20, TaskQueryPlanner.sort(new SortOption(field, SortDirection.ASC))), TaskView.FULL);
+
+            assertIndexScan(query);
+        }
+    }
+
+    static Stream<Arguments> singleEqualityFilters() {
+        return Stream.of(
+                Arguments.of("owner only", TaskFilter.none()),
+                Arguments.of("status", new TaskFilter(null, TaskStatus.IN_PROGRESS, null, null, null)),
+                Arguments.of("priority", new TaskFilter(null, null, TaskPriority.HIGH, null, null)),
+                Arguments.of("one tag", new TaskFilter(null, null, null, Set.of("tag1"), null))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("singleEqualityFilters")
+    void page_whenSingleEqualityFilter_thenSortedByIndex(String name, TaskFilter filter) {
+        for (SortField field : SortField.values()) {
+            for (SortDirection direction : SortDirection.values()) {
+                Query query = TaskQueryPlanner.page(OWNER_ID, filter, true,
+                        PageRequest.of(0, 20, TaskQueryPlanner.sort(new SortOption(field, direction))), TaskView.SUMMARY);
+
+                Set<String> stages = assertIndexScan(query);
+                assertFalse(stages.contains("SORT"), () -> "in-memory sort for " + field + " " + direction + ": " + stages);
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("filters")
+    void after_whenOwnerScoped_thenServedByIndexScan(String name, TaskFilter filter) {
+        TaskDocument last = mongoTemplate.findOne(TaskQueryPlanner.count(OWNER_ID, TaskFilter.none(), true), TaskDocument.class);
+        assertNotNull(last);
+        for (SortField field : SortField.values()) {
+            TaskCursor cursor = TaskCursor.after(last.toDomainTask(), new SortOption(field, SortDirection.DESC));
+
+            assertIndexScan(TaskQueryPlanner.after(OWNER_ID, filter, true, cursor, 20, TaskView.SUMMARY));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("filters")
+    void count_whenOwnerScoped_thenServedByIndexScan(String name, TaskFilter filter) {
+        assertIndexScan(TaskQueryPlanner.count(OWNER_ID, filter, true));
+    }
+
+    private static Set<String> assertIndexScan(Query query) {
+        Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+        Document explain = mongoTemplate.getCollection("tasks")
+                .find(filter)
+                .sort(sort)
+                .skip((int) query.getSkip())
+                .limit(query.getLimit())
+                .explain();
+
+        Set<String> stages = new HashSet<>();
+        collectStages(explain.get("queryPlanner", Document.class).get("winningPlan"), stages);
+        assertTrue(stages.contains("IXSCAN"), () -> "no index scan for " + filter + ": " + stages);
+        assertFalse(stages.contains("COLLSCAN"), () -> "collection scan for " + filter + ": " + stages);
+        return stages;
+    }
+
+    private static void collectStages(Object plan, Set<String> stages) {
+        if (plan instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (plan instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.grabduck.taskmanager.repository.mongodb;
+
+import com.grabduck.taskmanager.domain.TagMatch;
+import com.grabduck.taskmanager.domain.TaskFilter;
+import com.grabduck.taskmanager.domain.TaskPriority;
+import com.grabduck.taskmanager.domain.TaskStatus;
+import com.grabduck.taskmanager.domain.TaskView;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskQueryPlannerTest {
+
+    @Test
+    void count_whenOnlyOwnerGiven_thenSingleOwnerPredicate() {
+        Document query = TaskQueryPlanner.count("owner", TaskFilter.none(), true).getQueryObject();
+
+        assertEquals(new Document("ownerId", "owner"), query);
+    }
+
+    @Test
+    void count_whenNothingGiven_thenEmptyQuery() {
+        assertTrue(TaskQueryPlanner.count(null, TaskFilter.none(), true).getQueryObject().isEmpty());
+    }
+
+    @Test
+    void count_whenFiltersGiven_thenPredicatesInIndexOrder() {
+        TaskFilter filter = new TaskFilter(null, TaskStatus.PENDING, TaskPriority.LOW, Set.of("a", "b"), TagMatch.ANY);
+
+        List<?> predicates = TaskQueryPlanner.count("owner", filter, true).getQueryObject().getList("$and", Object.class);
+
+        assertEquals(4, predicates.size());
+        assertEquals(List.of("ownerId", "status", "priority", "tags"),
+                predicates.stream().map(predicate -> ((Document) predicate).keySet().iterator().next()).toList());
+        assertTrue(((Document) predicates.get(3)).get("tags", Document.class).containsKey("$in"));
+    }
+
+    @Test
+    void count_whenSearching_thenTrigramsPrecedeRegex() {
+        TaskFilter filter = new TaskFilter("Report", null, null, null, null);
+
+        List<?> predicates = TaskQueryPlanner.count("owner", filter, true).getQueryObject().getList("$and", Object.class);
+
+        assertEquals(3, predicates.size());
+        assertTrue(((Document) predicates.get(1)).containsKey("searchGrams"));
+        assertTrue(((Document) predicates.get(2)).containsKey("$or"));
+    }
+
+    @Test
+    void count_whenSearchingBeforeTrigramsMigrated_thenRegexOnly() {
+        TaskFilter filter = new TaskFilter("Report", null, null, null, null);
+
+        List<?> predicates = TaskQueryPlanner.count("owner", filter, false).getQueryObject().getList("$and", Object.class);
+
+        assertEquals(2, predicates.size());
+        assertTrue(((Document) predicates.get(1)).containsKey("$or"));
+    }
+
+    @Test
+    void page_whenSummaryView_thenDescriptionAndSearchGramsNotLoaded() {
+        Document fields = TaskQueryPlanner.page("owner", TaskFilter.none(), true, PageRequest.of(0, 20), TaskView.SUMMARY)
+                .getFieldsObject();
+
+        assertTrue(fields.containsKey("name"));
+        assertTrue(fields.containsKey("dueDate"));
+        assertFalse(fields.containsKey("description"));
+        assertFalse(fields.containsKey("searchGrams"));
+        assertFalse(fields.containsKey("createdAt"));
+    }
+
+    @Test
+    void page_whenFullView_thenSearchGramsStillNotLoaded() {
+        Document fields = TaskQueryPlanner.page("owner", TaskFilter.none(), true, PageRequest.of(0, 20), TaskView.FULL)
+                .getFieldsObject();
+
+        assertTrue(fields.containsKey("description"));
+        assertFalse(fields.containsKey("searchGrams"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.grabduck.taskmanager.repository.mongodb.migration;
+
+import com.grabduck.taskmanager.config.MigrationProperties;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts two runners on the same database at once and checks that only one applies the migration.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MigrationRunnerClaimTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:6.0");
+
+    @Test
+    void runAll_whenTwoNodesStartTogether_thenEveryDocumentMigratedOnce() {
+        MongoTemplate mongoTemplate = new MongoTemplate(MongoClients.create(MONGO.getReplicaSetUrl()), "claims");
+        List<Document> documents = new ArrayList<>();
+        IntStream.range(0, 5_000).forEach(i -> documents.add(new Document("_id", i)));
+        mongoTemplate.getCollection("items").insertMany(documents);
+
+        MigrationProperties properties = new MigrationProperties();
+        properties.setThrottleMs(0);
+        properties.setBatchSize(100);
+        properties.setLeaseMs(5_000);
+        MigrationRunner first = new MigrationRunner(mongoTemplate, List.of(new CountingMigration()), properties);
+        MigrationRunner second = new MigrationRunner(mongoTemplate, List.of(new CountingMigration()), properties);
+
+        CompletableFuture<Boolean> firstRun = CompletableFuture.supplyAsync(first::runAll);
+        CompletableFuture<Boolean> secondRun = CompletableFuture.supplyAsync(second::runAll);
+
+        assertTrue(firstRun.join());
+        assertTrue(secondRun.join());
+        assertEquals(5_000, mongoTemplate.getCollection("items").countDocuments(Filters.eq("runs", 1)));
+        assertTrue(first.isApplied("COUNT_RUNS"));
+    }
+
+    private static class CountingMigration implements Migration {
+        @Override
+        public String id() {
+            return "COUNT_RUNS";
+        }
+
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public String collection() {
+            return "items";
+        }
+
+        @Override
+        public Bson filter() {
+            return Filters.exists("migrated", false);
+        }
+
+        @Override
+        public List<WriteModel<Document>> migrate(List<Document> batch) {
+            return batch.stream()
+                    .<WriteModel<Document>>map(item -> new UpdateOneModel<>(
+                            Filters.eq("_id", item.get("_id")),
+                            Updates.combine(Updates.set("migrated", true), Updates.inc("runs", 1))))
+                    .toList();
+        }
+    }
+}
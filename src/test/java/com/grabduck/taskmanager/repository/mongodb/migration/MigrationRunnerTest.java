@@ -0,0 +1,38 @@
+package com.grabduck.taskmanager.repository.mongodb.migration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationRunnerTest {
+
+    @Test
+    void splitPoints_whenSampleShuffled_thenEvenQuantilesInOrder() {
+        List<Object> sample = new ArrayList<>(IntStream.range(0, 100).boxed().toList());
+        Collections.shuffle(sample);
+
+        assertEquals(List.of(25, 50, 75), MigrationRunner.splitPoints(sample, 4));
+    }
+
+    @Test
+    void splitPoints_whenSampleEmpty_thenNoSplitPoints() {
+        assertTrue(MigrationRunner.splitPoints(List.of(), 4).isEmpty());
+    }
+
+    @Test
+    void splitPoints_whenSampleRepeatsIds_thenSplitPointsDistinct() {
+        List<Object> sample = List.of("a", "a", "a", "a", "b", "b", "b", "b");
+
+        assertEquals(List.of("a", "b"), MigrationRunner.splitPoints(sample, 4));
+    }
+
+    @Test
+    void splitPoints_whenSingleWorker_thenNoSplitPoints() {
+        assertTrue(MigrationRunner.splitPoints(List.of("a", "b", "c"), 1).isEmpty());
+    }
+}
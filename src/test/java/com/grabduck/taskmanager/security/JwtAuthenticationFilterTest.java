@@ -8,11 +8,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -56,7 +60,7 @@ class JwtAuthenticationFilterTest {
     @Test
     void shouldAuthenticateWithValidToken() throws Exception {
         String bearerToken = "Bearer " + VALID_TOKEN;
-        UserDetails userDetails = new JwtUserDetails(1L, TEST_USERNAME, "password", Collections.emptyList(), true);
+        UserDetails userDetails = new JwtUserDetails(UUID.randomUUID(), TEST_USERNAME, "password", Collections.emptyList(), true);
 
         when(request.getHeader("Authorization")).thenReturn(bearerToken);
         when(jwtTokenUtil.extractUsername(VALID_TOKEN)).thenReturn(TEST_USERNAME);
@@ -70,6 +74,25 @@ class JwtAuthenticationFilterTest {
         assertEquals(TEST_USERNAME, SecurityContextHolder.getContext().getAuthentication().getName());
     }
 
+    @Test
+    void shouldAuthenticateFromTokenClaimsWithoutLoadingUser() throws Exception {
+        String bearerToken = "Bearer " + VALID_TOKEN;
+        UUID userId = UUID.randomUUID();
+        JwtUserDetails principal = new JwtUserDetails(userId, TEST_USERNAME, null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")), true);
+
+        when(request.getHeader("Authorization")).thenReturn(bearerToken);
+        when(jwtTokenUtil.extractPrincipal(VALID_TOKEN)).thenReturn(Optional.of(principal));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+        assertSame(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")),
+                List.copyOf(SecurityContextHolder.getContext().getAuthentication().getAuthorities()));
+    }
+
     @Test
     void shouldNotAuthenticateWithInvalidToken() throws Exception {
         String bearerToken = "Bearer " + VALID_TOKEN;
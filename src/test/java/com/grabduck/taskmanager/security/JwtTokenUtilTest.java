@@ -1,14 +1,18 @@
 package com.grabduck.taskmanager.security;
 
 import com.grabduck.taskmanager.config.JwtProperties;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -71,4 +75,36 @@ class JwtTokenUtilTest {
         
         assertFalse(jwtTokenUtil.isTokenValid(token, differentUser));
     }
+
+    @Test
+    void whenTokenIssuedForJwtUserDetails_thenPrincipalIsRestoredFromClaims() {
+        UUID userId = UUID.randomUUID();
+        JwtUserDetails user = new JwtUserDetails(userId, "testuser", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), true);
+
+        String token = jwtTokenUtil.generateToken(user);
+        JwtUserDetails principal = jwtTokenUtil.extractPrincipal(token).orElseThrow();
+
+        assertEquals(userId, principal.id());
+        assertEquals("testuser", principal.getUsername());
+        assertNull(principal.getPassword());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), List.copyOf(principal.getAuthorities()));
+    }
+
+    @Test
+    void whenTokenHasNoUserId_thenNoPrincipalIsRestored() {
+        String token = jwtTokenUtil.generateToken(userDetails);
+
+        assertTrue(jwtTokenUtil.extractPrincipal(token).isEmpty());
+    }
+
+    @Test
+    void whenTokenSignedWithOtherKey_thenPrincipalIsRejected() {
+        JwtProperties otherProperties = new JwtProperties();
+        otherProperties.setSecretKey("another-secret-key-that-is-long-enough-for-testing-purposes");
+        String token = new JwtTokenUtil(otherProperties).generateToken(
+                new JwtUserDetails(UUID.randomUUID(), "testuser", "password", List.of(), true));
+
+        assertThrows(JwtException.class, () -> jwtTokenUtil.extractPrincipal(token));
+    }
 }
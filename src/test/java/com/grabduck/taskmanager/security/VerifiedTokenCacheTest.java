@@ -0,0 +1,55 @@
+package com.grabduck.taskmanager.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final long NOW = 1_000_000L;
+
+    @Test
+    void whenTokenCached_thenClaimsServedUntilExpiration() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        Claims claims = claims("user", NOW + 1_000);
+
+        cache.put("token", claims, NOW);
+
+        assertSame(claims, cache.get("token", NOW + 999).orElseThrow());
+        assertTrue(cache.get("token", NOW + 1_000).isEmpty());
+        assertTrue(cache.get("other", NOW).isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void whenCacheFull_thenExpiredEntriesAreDroppedFirst() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        cache.put("expiring", claims("a", NOW + 10), NOW);
+        cache.put("lasting", claims("b", NOW + 1_000), NOW);
+
+        cache.put("new", claims("c", NOW + 1_000), NOW + 20);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("lasting", NOW + 20).isPresent());
+        assertTrue(cache.get("new", NOW + 20).isPresent());
+    }
+
+    @Test
+    void whenCacheDisabledOrTokenHasNoExpiration_thenNothingIsCached() {
+        VerifiedTokenCache disabled = new VerifiedTokenCache(0);
+        disabled.put("token", claims("user", NOW + 1_000), NOW);
+        assertTrue(disabled.get("token", NOW).isEmpty());
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("token", Jwts.claims().subject("user").build(), NOW);
+        assertEquals(0, cache.size());
+    }
+
+    private static Claims claims(String subject, long expiresAtMs) {
+        return Jwts.claims().subject(subject).expiration(new Date(expiresAtMs)).build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.grabduck.taskmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grabduck.taskmanager.domain.*;
+import com.grabduck.taskmanager.repository.InMemoryTaskRepository;
+import com.grabduck.taskmanager.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TaskServiceImportTest {
+
+    private InMemoryTaskRepository taskRepository;
+    private TaskService taskService;
+    private UUID ownerId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("user"))
+                .thenReturn(Optional.of(new User(ownerId, "user", "user@example.com", "password", Set.of(UserRole.USER))));
+        taskRepository = new InMemoryTaskRepository();
+        taskService = new TaskService(taskRepository, userRepository, new ObjectMapper().findAndRegisterModules());
+
+        UserDetails principal = org.springframework.security.core.userdetails.User.withUsername("user")
+                .password("password")
+                .roles("USER")
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void importTasks_whenNdjsonHasInvalidItems_thenImportsValidOnesAndReportsLines() {
+        String body = """
+                {"name":"First","priority":"HIGH","tags":["a"],"user":"user"}
+                {"name":"","priority":"HIGH","tags":[],"user":"user"}
+                {"name":"Third","priority":"SOMETIMES","tags":[],"user":"user"}
+                {"name":"Fourth","priority":"LOW","tags":[],"user":"user","dueDate":"2030-01-01T10:00:00"}
+                """;
+
+        TaskImportReport report = taskService.importTasks(input(body));
+
+        assertEquals(2, report.imported());
+        assertEquals(2, report.failed());
+        assertTrue(report.complete());
+        assertEquals(2, report.errors().get(0).item());
+        assertEquals(2, report.errors().get(0).line());
+        assertEquals("Task name cannot be null or empty", report.errors().get(0).message());
+        assertEquals(3, report.errors().get(1).item());
+        assertEquals(3, report.errors().get(1).line());
+        assertEquals(2, taskRepository.findTasks(ownerId, TaskFilter.none(), 0, 10,
+                SortOption.fromString("dueDate,asc"), CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void importTasks_whenJsonArrayLargerThanOneBatch_thenImportsEveryItem() {
+        StringBuilder body = new StringBuilder("[");
+        int count = TaskService.IMPORT_BATCH_SIZE + 5;
+        for (int i = 0; i < count; i++) {
+            body.append(i > 0 ? "," : "")
+                    .append("{\"name\":\"Task ").append(i).append("\",\"priority\":\"MEDIUM\",\"tags\":[],\"user\":\"user\"}");
+        }
+        body.append("]");
+
+        TaskImportReport report = taskService.importTasks(input(body.toString()));
+
+        assertEquals(count, report.imported());
+        assertEquals(0, report.failed());
+        assertTrue(report.complete());
+        assertEquals(count, taskRepository.findTasks(ownerId, TaskFilter.none(), 0, 1,
+                SortOption.fromString("dueDate,asc"), CountMode.EXACT, TaskView.FULL).totalElements());
+    }
+
+    @Test
+    void importTasks_whenJsonIsMalformed_thenKeepsEarlierTasksAndStops() {
+        String body = """
+                {"name":"First","priority":"HIGH","tags":[],"user":"user"}
+                {"name":"Second" "priority":"HIGH"}
+                {"name":"Third","priority":"HIGH","tags":[],"user":"user"}
+                """;
+
+        TaskImportReport report = taskService.importTasks(input(body));
+
+        assertEquals(1, report.imported());
+        assertFalse(report.complete());
+        assertEquals(1, report.failed());
+        assertEquals(2, report.errors().get(0).item());
+        assertTrue(report.errors().get(0).message().startsWith("Malformed JSON"));
+    }
+
+    private static InputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
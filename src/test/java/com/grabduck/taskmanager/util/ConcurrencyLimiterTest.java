@@ -0,0 +1,56 @@
+package com.grabduck.taskmanager.util;
+
+import com.grabduck.taskmanager.exception.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void call_whenPermitFree_thenReturnsResultAndReleasesPermit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2, Duration.ofMillis(100));
+
+        assertEquals("value", limiter.call(() -> "value"));
+        assertThrows(IllegalArgumentException.class, () -> limiter.call(() -> {
+            throw new IllegalArgumentException("failed");
+        }));
+
+        assertEquals(2, limiter.available());
+    }
+
+    @Test
+    void call_whenAllPermitsHeldPastTimeout_thenThrows() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, Duration.ofMillis(50));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> limiter.run(() -> {
+                holding.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            holding.await();
+
+            ServiceBusyException busy = assertThrows(ServiceBusyException.class, () -> limiter.call(() -> "value"));
+            assertEquals(Duration.ofMillis(50), busy.getRetryAfter());
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            assertEquals("value", limiter.call(() -> "value"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
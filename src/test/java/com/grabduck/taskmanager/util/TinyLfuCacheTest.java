@@ -0,0 +1,191 @@
+package com.grabduck.taskmanager.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void put_whenFullAndCandidateRarelyUsed_thenHotEntriesAreKept() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>("test", 2, Duration.ofMinutes(1), now::get);
+        for (String key : new String[]{"hot-1", "hot-2"}) {
+            for (int i = 0; i < 5; i++) {
+                cache.get(key);
+            }
+            cache.put(key, key);
+        }
+
+        cache.get("cold");
+        assertFalse(cache.put("cold", "cold"));
+
+        assertEquals("hot-1", cache.get("hot-1"));
+        assertEquals("hot-2", cache.get("hot-2"));
+        assertEquals(1, cache.stats().rejections());
+    }
+
+    @Test
+    void put_whenFullAndCandidateUsedMoreOften_thenLeastUsedEntryIsEvicted() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>("test", 2, Duration.ofMinutes(1), now::get);
+        cache.get("rare");
+        cache.put("rare", "rare");
+        for (int i = 0; i < 3; i++) {
+            cache.get("warm");
+        }
+        cache.put("warm", "warm");
+
+        for (int i = 0; i < 5; i++) {
+            cache.get("rising");
+        }
+        assertTrue(cache.put("rising", "rising"));
+
+        assertNull(cache.get("rare"));
+        assertEquals("warm", cache.get("warm"));
+        assertEquals("rising", cache.get("rising"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void put_whenOnlyColdEntryIsOutsideTableHead_thenColdEntryIsEvicted() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>("test", 64, Duration.ofMinutes(1), now::get);
+        Map<String, Boolean> order = new ConcurrentHashMap<>();
+        for (int i = 0; i < 64; i++) {
+            String key = "key-" + i;
+            cache.put(key, key);
+            order.put(key, true);
+        }
+        // The same inserts into the same kind of map give the cache's iteration order
+        List<String> keys = new ArrayList<>(order.keySet());
+        String cold = keys.get(keys.size() - 1);
+        for (String key : keys) {
+            if (!key.equals(cold)) {
+                for (int i = 0; i < 6; i++) {
+                    cache.get(key);
+                }
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            cache.get("candidate");
+        }
+
+        boolean admitted = false;
+        for (int attempt = 0; attempt < 500 && !admitted; attempt++) {
+            admitted = cache.put("candidate", "candidate");
+        }
+
+        assertTrue(admitted);
+        assertNull(cache.get(cold));
+        assertEquals(63, keys.stream().filter(key -> cache.get(key) != null).count());
+    }
+
+    @Test
+    void get_whenEntryExpired_thenMissAndEntryIsDropped() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>("test", 10, Duration.ofSeconds(1), now::get);
+        cache.put("key", "value");
+        assertEquals("value", cache.get("key"));
+
+        now.addAndGet(1_000);
+
+        assertNull(cache.get("key"));
+        CacheStats stats = cache.stats();
+        assertEquals(0, stats.size());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRatio());
+    }
+
+    @Test
+    void invalidateIf_whenPredicateMatches_thenOnlyMatchingEntriesAreDropped() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>("test", 10, Duration.ofMinutes(1), now::get);
+        cache.put("a", "owner-1");
+        cache.put("b", "owner-2");
+
+        cache.invalidateIf("owner-1"::equals);
+
+        assertNull(cache.get("a"));
+        assertEquals("owner-2", cache.get("b"));
+    }
+
+    @Test
+    void put_whenFullAndSampledKeyIsStale_thenStaleEntryMakesRoom() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>("test", 1, Duration.ofMinutes(1), now::get);
+        for (int i = 0; i < 5; i++) {
+            cache.get("old");
+        }
+        cache.put("old", "old");
+        cache.reclaimWhen("old"::equals);
+
+        assertTrue(cache.put("new", "new"));
+
+        assertEquals("new", cache.get("new"));
+        assertEquals(0, cache.stats().rejections());
+    }
+
+    @Test
+    void getOrLoad_whenSameKeyMissedConcurrently_thenLoadedOnce() throws Exception {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>("test", 10, Duration.ofMinutes(1), now::get);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> cache.getOrLoad("key", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "value";
+            }));
+            loading.await();
+            Future<String> follower = executor.submit(() -> cache.getOrLoad("key", () -> {
+                loads.incrementAndGet();
+                return "other";
+            }));
+            while (cache.stats().coalesced() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+            assertEquals(0.5, cache.stats().coalescingRatio());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getOrLoad_whenLoadFails_thenNothingIsCachedAndNextCallLoadsAgain() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>("test", 10, Duration.ofMinutes(1), now::get);
+
+        assertThrows(IllegalStateException.class, () -> cache.getOrLoad("key", () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals("value", cache.getOrLoad("key", () -> "value"));
+        assertEquals("value", cache.get("key"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}